@@ -0,0 +1,104 @@
+package com.alraxas.taskmanager.benchmarks;
+
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.schedulers.ShardStatistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Всплеск срабатываний "в начале часа": burst будильников с одним сроком. Часы менеджера
+// переводятся на этот срок прямо перед запуском, и замеряется время, за которое шарды
+// планировщика обработают все срабатывания:
+//   java -jar target/benchmarks.jar AlarmBurstBenchmark -p shards=1,4,16
+// В конце прогона один раз печатается задержка срабатывания по шардам за все измеренные запуски
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlarmBurstBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int burst;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int shards;
+
+    private AlarmManager alarmManager;
+    private LocalDateTime fireAt;
+    // накопленная по измеренным запускам статистика шардов, прогрев не учитывается
+    private String[] shardNames;
+    private long[] shardFired;
+    private long[] shardTotalLagNanos;
+    private long[] shardMaxLagNanos;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        shardNames = new String[shards];
+        shardFired = new long[shards];
+        shardTotalLagNanos = new long[shards];
+        shardMaxLagNanos = new long[shards];
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        alarmManager = new AlarmManager(4, 1_000, Clock.systemDefaultZone(), shards);
+        alarmManager.setEventSink(NoOpEventSink.INSTANCE);
+        fireAt = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < burst; i++) {
+            alarmManager.setAlarm("alarm " + i, fireAt);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown(IterationParams iteration) {
+        alarmManager.shutdown();
+        if (iteration.getType() != IterationType.MEASUREMENT) {
+            return;
+        }
+        List<ShardStatistics> statistics = alarmManager.getSchedulerStatistics();
+        for (int i = 0; i < statistics.size(); i++) {
+            ShardStatistics shard = statistics.get(i);
+            shardNames[i] = shard.getName();
+            shardFired[i] += shard.getFired();
+            shardTotalLagNanos[i] += shard.getMeanLagNanos() * shard.getFired();
+            shardMaxLagNanos[i] = Math.max(shardMaxLagNanos[i], shard.getMaxLagNanos());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        for (int i = 0; i < shards; i++) {
+            long fired = shardFired[i];
+            System.out.println(new ShardStatistics(shardNames[i], 0, fired,
+                    fired == 0 ? 0 : shardTotalLagNanos[i] / fired, shardMaxLagNanos[i]));
+        }
+    }
+
+    @Benchmark
+    public long drainBurst() throws InterruptedException {
+        alarmManager.setClock(Clock.offset(Clock.systemDefaultZone(), Duration.between(LocalDateTime.now(), fireAt)));
+        alarmManager.startAlarmChecker();
+        long fired;
+        while ((fired = firedCount()) < burst) {
+            Thread.sleep(1);
+        }
+        return fired;
+    }
+
+    private long firedCount() {
+        long fired = 0;
+        for (ShardStatistics shard : alarmManager.getSchedulerStatistics()) {
+            fired += shard.getFired();
+        }
+        return fired;
+    }
+}
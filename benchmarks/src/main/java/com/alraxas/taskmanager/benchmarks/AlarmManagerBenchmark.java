@@ -0,0 +1,88 @@
+package com.alraxas.taskmanager.benchmarks;
+
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.models.Alarm;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Запуск: java -jar target/benchmarks.jar AlarmManagerBenchmark -t 8 -prof gc
+// Будильники разнесены на месяц вперед, поэтому во время замера они не срабатывают
+// и измеряется стоимость перепланирования и запросов, а не доставки
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlarmManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"0.1", "0.5", "0.9"})
+    public double activeShare;
+
+    private AlarmManager alarmManager;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        long nextId(int size) {
+            return random.nextInt(size) + 1L;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        alarmManager = new AlarmManager(4, 1_000);
+        alarmManager.setEventSink(NoOpEventSink.INSTANCE);
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime start = LocalDateTime.now().plusDays(30);
+        for (int i = 0; i < size; i++) {
+            Alarm alarm = alarmManager.setAlarm("alarm " + i, start.plusMinutes(random.nextInt(60 * 24 * 30)));
+            if (random.nextDouble() >= activeShare) {
+                alarm.deactivate();
+            }
+        }
+        alarmManager.startAlarmChecker();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        alarmManager.shutdown();
+    }
+
+    @Benchmark
+    public Alarm getAlarmById(Cursor cursor) {
+        return alarmManager.getAlarmById(cursor.nextId(size));
+    }
+
+    @Benchmark
+    public boolean rescheduleAlarm(Cursor cursor) {
+        Alarm alarm = alarmManager.getAlarmById(cursor.nextId(size));
+        alarm.setAlarmTime(alarm.getAlarmTime().plusMinutes(1));
+        return alarm.isActive();
+    }
+
+    @Benchmark
+    public boolean toggleAlarm(Cursor cursor) {
+        return alarmManager.toggleAlarm(cursor.nextId(size));
+    }
+
+    @Benchmark
+    public Map<String, Integer> getStatistics() {
+        return alarmManager.getStatistics();
+    }
+
+    @Benchmark
+    public List<Alarm> getUpcomingAlarms() {
+        return alarmManager.getUpcomingAlarms();
+    }
+}
@@ -0,0 +1,61 @@
+package com.alraxas.taskmanager.benchmarks;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.models.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class BenchmarkData {
+    static final String[] WORDS = {"report", "invoice", "meeting", "review", "deploy", "backup", "release", "budget"};
+
+    // Распределение статусов и приоритетов в наборе задач
+    public enum Mix {
+        BALANCED(0.25, 0.25, 0.25, 0.25),
+        BACKLOG(0.05, 0.05, 0.10, 0.50),
+        DONE(0.80, 0.05, 0.05, 0.05);
+
+        private final double completed;
+        private final double cancelled;
+        private final double inProgress;
+        private final double urgent;
+
+        Mix(double completed, double cancelled, double inProgress, double urgent) {
+            this.completed = completed;
+            this.cancelled = cancelled;
+            this.inProgress = inProgress;
+            this.urgent = urgent;
+        }
+    }
+
+    public static List<Task> tasks(int size, Mix mix) {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> tasks = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            LocalDateTime dueDate = random.nextInt(4) == 0 ? null : now.plusHours(random.nextInt(-24 * 30, 24 * 30));
+            tasks.add(new Task(id, word + " " + id, "about " + word + " number " + id,
+                    priority(random, mix), dueDate, status(random, mix)));
+        }
+        return tasks;
+    }
+
+    private static TaskStatus status(SplittableRandom random, Mix mix) {
+        double roll = random.nextDouble();
+        if (roll < mix.completed) return TaskStatus.COMPLETED;
+        if (roll < mix.completed + mix.cancelled) return TaskStatus.CANCELLED;
+        if (roll < mix.completed + mix.cancelled + mix.inProgress) return TaskStatus.IN_PROGRESS;
+        return TaskStatus.PENDING;
+    }
+
+    private static TaskPriority priority(SplittableRandom random, Mix mix) {
+        if (random.nextDouble() < mix.urgent) {
+            return TaskPriority.URGENT;
+        }
+        return TaskPriority.values()[random.nextInt(TaskPriority.values().length - 1)];
+    }
+}
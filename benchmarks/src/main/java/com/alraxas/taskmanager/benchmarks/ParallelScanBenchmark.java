@@ -0,0 +1,59 @@
+package com.alraxas.taskmanager.benchmarks;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.managers.TaskManager;
+import com.alraxas.taskmanager.models.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Масштабирование полных проходов по числу потоков пула:
+//   java -Xmx32g -jar target/benchmarks.jar ParallelScanBenchmark -p size=10000000
+// parallelism=1 - последовательный проход в вызывающем потоке, для сравнения
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelScanBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int parallelism;
+
+    private TaskManager taskManager;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskManager = new TaskManager();
+        taskManager.setEventSink(NoOpEventSink.INSTANCE);
+        taskManager.addTasks(BenchmarkData.tasks(size, BenchmarkData.Mix.BALANCED));
+        // проверка статистики - это и есть полный проход с агрегацией
+        taskManager.setStatisticsCheck(true);
+        pool = new ForkJoinPool(parallelism);
+        taskManager.setParallelScan(pool, parallelism == 1 ? Integer.MAX_VALUE : 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Task> filterUrgentOverdue() {
+        return taskManager.filterTasks(task -> task.getTaskPriority() == TaskPriority.URGENT && task.isOverdue());
+    }
+
+    @Benchmark
+    public Map<String, Integer> getStatisticsChecked() {
+        return taskManager.getStatistics();
+    }
+}
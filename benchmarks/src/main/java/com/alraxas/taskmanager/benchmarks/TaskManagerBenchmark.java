@@ -0,0 +1,86 @@
+package com.alraxas.taskmanager.benchmarks;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.managers.TaskManager;
+import com.alraxas.taskmanager.models.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Запуск: mvn install в корне, затем mvn package здесь и
+//   java -Xmx32g -jar target/benchmarks.jar TaskManagerBenchmark -t 8 -prof gc
+// -t задает число потоков, -prof gc добавляет скорость выделения памяти на операцию
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"BALANCED", "BACKLOG", "DONE"})
+    public BenchmarkData.Mix mix;
+
+    private TaskManager taskManager;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        long nextId(int size) {
+            return random.nextInt(size) + 1L;
+        }
+
+        String nextWord() {
+            return BenchmarkData.WORDS[random.nextInt(BenchmarkData.WORDS.length)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskManager = new TaskManager();
+        taskManager.setEventSink(NoOpEventSink.INSTANCE);
+        taskManager.addTasks(BenchmarkData.tasks(size, mix));
+    }
+
+    @Benchmark
+    public Task getTaskById(Cursor cursor) {
+        return taskManager.getTaskById(cursor.nextId(size));
+    }
+
+    @Benchmark
+    public List<Task> searchTasksByTitle(Cursor cursor) {
+        return taskManager.searchTasksByTitle(cursor.nextWord() + " " + cursor.nextId(size));
+    }
+
+    @Benchmark
+    public Map<String, Integer> getStatistics() {
+        return taskManager.getStatistics();
+    }
+
+    @Benchmark
+    public List<Task> getOverdueTasks() {
+        return taskManager.getOverdueTasks();
+    }
+
+    @Benchmark
+    public List<Task> filterTasksByStatusInProgress() {
+        return taskManager.filterTasksByStatus(TaskStatus.IN_PROGRESS);
+    }
+
+    @Benchmark
+    public boolean updateTaskPriority(Cursor cursor) {
+        Task task = taskManager.getTaskById(cursor.nextId(size));
+        TaskPriority next = task.getTaskPriority() == TaskPriority.LOW ? TaskPriority.HIGH : TaskPriority.LOW;
+        task.setTaskPriority(next);
+        return task.getTaskPriority() == next;
+    }
+}
@@ -0,0 +1,42 @@
+package com.alraxas.taskmanager.enums;
+
+// Аргументы шаблона: 1 - id (или количество для пакетных операций), 2 - детали события
+public enum EventType {
+    TASK_ADDED("Task added: %2$s"),
+    TASK_UPDATED("Task #%1$d updated"),
+    TASK_DELETED("Task #%1$d deleted"),
+    TASK_NOT_FOUND("Task #%1$d not found"),
+    TASK_IN_PROGRESS("Task #%1$d in progress"),
+    TASK_COMPLETED("Task #%1$d done"),
+    TASK_CANCELLED("Task #%1$d cancelled"),
+    TASKS_ADDED("Tasks added: %1$d"),
+    TASKS_DELETED("Tasks deleted: %1$d"),
+    TASKS_COMPLETED("Tasks done: %1$d"),
+    TASKS_CANCELLED("Tasks cancelled: %1$d"),
+    TASKS_CLEARED("All tasks were deleted"),
+    ALARM_SET("Alarm is set: %2$td.%2$tm.%2$tY %2$tH:%2$tM"),
+    ALARM_SET_RECURRING("Alarm is set: %2$td.%2$tm.%2$tY %2$tH:%2$tM (repeated)"),
+    ALARM_SET_QUICK("Alarm is set on: %2$s"),
+    ALARMS_ADDED("Alarms added: %1$d"),
+    ALARM_DELETED("Alarm #%1$d is deleted"),
+    ALARM_NOT_FOUND("Error: Alarm #%1$d is not found"),
+    ALARM_ACTIVATED("Alarm #%1$d is activated"),
+    ALARM_DEACTIVATED("Alarm #%1$d is deactivated"),
+    ALARM_TOGGLED("Alarm #%1$d %2$s"),
+    ALARM_SNOOZED("Alarm #%1$d is postponed for %2$d minutes"),
+    ALARM_LISTENER_FAILED("Error: Alarm listener failed: %2$s"),
+    ALARM_DELIVERY_DROPPED("Error: Alarm #%1$d is not delivered, dispatch queue is full: %2$s"),
+    ALARM_CHECK_FAILED("Error: Alarm #%1$d check failed: %2$s"),
+    ALARMS_CLEARED("All alarms were deleted"),
+    ALARM_MANAGER_STOPPED("Info: Alarm manager is stopped");
+
+    private final String pattern;
+
+    EventType(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String format(long id, Object detail) {
+        return String.format(pattern, id, detail);
+    }
+}
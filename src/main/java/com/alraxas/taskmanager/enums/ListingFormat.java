@@ -0,0 +1,7 @@
+package com.alraxas.taskmanager.enums;
+
+public enum ListingFormat {
+    PLAIN,   // нумерованные блоки, как в toString
+    COMPACT, // одна строка на элемент, как в toShortString
+    JSON     // JSON Lines: один объект на строку
+}
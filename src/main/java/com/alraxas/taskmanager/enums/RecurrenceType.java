@@ -0,0 +1,23 @@
+package com.alraxas.taskmanager.enums;
+
+public enum RecurrenceType {
+    DAILY("Daily"),
+    WEEKLY("Weekly"),
+    HOURLY("Hourly"),
+    MONTHLY("Monthly");
+
+    private final String displayName;
+
+    RecurrenceType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
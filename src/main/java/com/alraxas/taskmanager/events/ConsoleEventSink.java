@@ -0,0 +1,12 @@
+package com.alraxas.taskmanager.events;
+
+import com.alraxas.taskmanager.enums.EventType;
+import com.alraxas.taskmanager.utils.ConsoleUtils;
+
+public class ConsoleEventSink implements EventSink {
+
+    @Override
+    public void publish(EventType type, long id, Object detail) {
+        ConsoleUtils.printLine(type.format(id, detail));
+    }
+}
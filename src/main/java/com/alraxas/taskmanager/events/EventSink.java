@@ -0,0 +1,14 @@
+package com.alraxas.taskmanager.events;
+
+import com.alraxas.taskmanager.enums.EventType;
+
+// Получатель событий менеджеров. Менеджеры передают только тип, id и уже существующий
+// объект с деталями, а строку собирает (или не собирает) сам получатель
+@FunctionalInterface
+public interface EventSink {
+
+    void publish(EventType type, long id, Object detail);
+
+    default void close() {
+    }
+}
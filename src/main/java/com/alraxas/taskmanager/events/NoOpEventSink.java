@@ -0,0 +1,14 @@
+package com.alraxas.taskmanager.events;
+
+import com.alraxas.taskmanager.enums.EventType;
+
+public class NoOpEventSink implements EventSink {
+    public static final NoOpEventSink INSTANCE = new NoOpEventSink();
+
+    private NoOpEventSink() {
+    }
+
+    @Override
+    public void publish(EventType type, long id, Object detail) {
+    }
+}
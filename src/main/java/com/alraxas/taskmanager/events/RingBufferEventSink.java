@@ -0,0 +1,119 @@
+package com.alraxas.taskmanager.events;
+
+import com.alraxas.taskmanager.enums.EventType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Кольцевой буфер без блокировок: публикующие потоки только занимают слот через CAS и
+// записывают в него поля, а форматирование и вывод делает один фоновый поток.
+// Если буфер полон, событие отбрасывается и учитывается в getDroppedCount().
+public class RingBufferEventSink implements EventSink {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int mask;
+    private final EventType[] types;
+    private final long[] ids;
+    private final Object[] details;
+    private final AtomicLongArray published; // номер события, записанного в слот
+    private final AtomicLong tail; // следующий номер для публикации
+    private volatile long head; // следующий номер для вывода
+    private final AtomicLong droppedCount;
+    private final Writer writer;
+    private final Thread drainer;
+    private volatile boolean running;
+
+    public RingBufferEventSink(int capacity, OutputStream out) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity has to be a power of two");
+        }
+        this.mask = capacity - 1;
+        this.types = new EventType[capacity];
+        this.ids = new long[capacity];
+        this.details = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.tail = new AtomicLong();
+        this.droppedCount = new AtomicLong();
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.running = true;
+        this.drainer = new Thread(this::drain, "EventSinkWriter");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    @Override
+    public void publish(EventType type, long id, Object detail) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        types[slot] = type;
+        ids[slot] = id;
+        details[slot] = detail;
+        published.set(slot, sequence); // публикует поля слота для фонового потока
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    // Дописывает все опубликованные события и останавливает фоновый поток
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (running || head != tail.get()) {
+                if (!writeNext()) {
+                    writer.flush();
+                    if (running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    } else {
+                        Thread.onSpinWait(); // слот занят, но еще не дописан
+                    }
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            running = false;
+        }
+    }
+
+    private boolean writeNext() throws IOException {
+        long sequence = head;
+        int slot = (int) (sequence & mask);
+        if (published.get(slot) != sequence) {
+            return false;
+        }
+        EventType type = types[slot];
+        long id = ids[slot];
+        Object detail = details[slot];
+        details[slot] = null;
+        head = sequence + 1; // освобождает слот для публикующих потоков
+
+        writer.write(type.format(id, detail));
+        writer.write(System.lineSeparator());
+        return true;
+    }
+}
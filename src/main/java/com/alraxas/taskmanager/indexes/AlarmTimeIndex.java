@@ -0,0 +1,51 @@
+package com.alraxas.taskmanager.indexes;
+
+import com.alraxas.taskmanager.models.Alarm;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AlarmTimeIndex {
+    // (время срабатывания, id) -> будильник; размер ведется отдельно, потому что
+    // size() у ConcurrentSkipListMap обходит все записи
+    private final ConcurrentSkipListMap<TimeKey, Alarm> byTime;
+    private final AtomicInteger size;
+
+    public AlarmTimeIndex() {
+        this.byTime = new ConcurrentSkipListMap<>();
+        this.size = new AtomicInteger();
+    }
+
+    public void add(Alarm alarm) {
+        if (byTime.put(new TimeKey(alarm.getAlarmTime(), alarm.getId()), alarm) == null) {
+            size.incrementAndGet();
+        }
+    }
+
+    public void remove(Alarm alarm, LocalDateTime alarmTime) {
+        if (byTime.remove(new TimeKey(alarmTime, alarm.getId())) != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    // Будильники со временем в [from, to): проходятся только они
+    public int countBetween(LocalDateTime from, LocalDateTime to) {
+        return byTime.subMap(TimeKey.lowest(from), TimeKey.lowest(to)).size();
+    }
+
+    // Будильники раньше to через дополнение: проходятся только будильники не раньше to,
+    // поэтому накопленная история прошедших будильников подсчет не замедляет
+    public int countBefore(LocalDateTime to) {
+        return size.get() - byTime.tailMap(TimeKey.lowest(to)).size();
+    }
+
+    public void clear() {
+        byTime.clear();
+        size.set(0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.alraxas.taskmanager.indexes;
+
+import com.alraxas.taskmanager.models.Task;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class DueDateIndex {
+    // (срок, id) -> задача; задачи без срока не индексируются
+    private final NavigableMap<TimeKey, Task> byDueDate;
+
+    public DueDateIndex() {
+        this.byDueDate = new ConcurrentSkipListMap<>();
+    }
+
+    public void add(Task task) {
+        LocalDateTime dueDate = task.getDueDate();
+        if (dueDate != null) {
+            byDueDate.put(new TimeKey(dueDate, task.getId()), task);
+        }
+    }
+
+    public void remove(Task task, LocalDateTime dueDate) {
+        if (dueDate != null) {
+            byDueDate.remove(new TimeKey(dueDate, task.getId()));
+        }
+    }
+
+    public void move(Task task, LocalDateTime oldDueDate) {
+        remove(task, oldDueDate);
+        add(task);
+    }
+
+    // Задачи со сроком в [from, to), по возрастанию срока
+    public List<Task> between(LocalDateTime from, LocalDateTime to) {
+        return new ArrayList<>(byDueDate.subMap(TimeKey.lowest(from), TimeKey.lowest(to)).values());
+    }
+
+    // Задачи со сроком строго раньше to
+    public List<Task> before(LocalDateTime to) {
+        return new ArrayList<>(byDueDate.headMap(TimeKey.lowest(to)).values());
+    }
+
+    // Проходит только сами задачи раньше to
+    public int countBefore(LocalDateTime to) {
+        return byDueDate.headMap(TimeKey.lowest(to)).size();
+    }
+
+    // Задачи со сроком в [from, to) по возрастанию срока, без копирования; любая граница может быть null
+    public Collection<Task> range(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null) {
+            if (!from.isBefore(to)) {
+                return Collections.emptyList();
+            }
+            return byDueDate.subMap(TimeKey.lowest(from), TimeKey.lowest(to)).values();
+        }
+        if (from != null) {
+            return byDueDate.tailMap(TimeKey.lowest(from)).values();
+        }
+        if (to != null) {
+            return byDueDate.headMap(TimeKey.lowest(to)).values();
+        }
+        return byDueDate.values();
+    }
+
+    // Размер диапазона, но не больше cap: планировщику важно лишь, меньше ли он лучшей оценки
+    public int countBetween(LocalDateTime from, LocalDateTime to, int cap) {
+        int count = 0;
+        Iterator<Task> iterator = range(from, to).iterator();
+        while (count < cap && iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    public void clear() {
+        byDueDate.clear();
+    }
+}
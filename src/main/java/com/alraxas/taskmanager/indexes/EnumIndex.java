@@ -0,0 +1,120 @@
+package com.alraxas.taskmanager.indexes;
+
+import com.alraxas.taskmanager.models.Task;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class EnumIndex<E extends Enum<E>> {
+    private static final Comparator<Task> BY_ID = Comparator.comparing(Task::getId);
+
+    private final Map<E, NavigableMap<Long, Task>> buckets;
+    // размер ConcurrentSkipListMap считается за O(n), поэтому размеры бакетов храним отдельно
+    private final AtomicIntegerArray counts;
+
+    public EnumIndex(Class<E> keyType) {
+        E[] keys = keyType.getEnumConstants();
+        this.buckets = new EnumMap<>(keyType);
+        for (E key : keys) {
+            buckets.put(key, new ConcurrentSkipListMap<>());
+        }
+        this.counts = new AtomicIntegerArray(keys.length);
+    }
+
+    public void add(E key, Task task) {
+        if (buckets.get(key).put(task.getId(), task) == null) {
+            counts.incrementAndGet(key.ordinal());
+        }
+    }
+
+    public void remove(E key, Task task) {
+        if (buckets.get(key).remove(task.getId()) != null) {
+            counts.decrementAndGet(key.ordinal());
+        }
+    }
+
+    public void move(E oldKey, E newKey, Task task) {
+        if (oldKey != newKey) {
+            remove(oldKey, task);
+            add(newKey, task);
+        }
+    }
+
+    public int count(E key) {
+        return counts.get(key.ordinal());
+    }
+
+    // Задачи с любым из ключей, отсортированные по id
+    @SafeVarargs
+    public final List<Task> get(E... keys) {
+        int size = 0;
+        for (E key : keys) {
+            size += count(key);
+        }
+
+        List<Task> result = new ArrayList<>(size);
+        for (E key : keys) {
+            result.addAll(buckets.get(key).values());
+        }
+        if (keys.length > 1) {
+            // каждый бакет уже отсортирован, так что сортировка сводится к слиянию
+            result.sort(BY_ID);
+        }
+        return result;
+    }
+
+    // Ленивый обход задач с любым из ключей по возрастанию id, начиная после afterId
+    // (null - с начала): слияние хвостов отсортированных бакетов без копирования
+    @SafeVarargs
+    public final Iterator<Task> iterator(Long afterId, E... keys) {
+        List<Iterator<Task>> sources = new ArrayList<>(keys.length);
+        for (E key : keys) {
+            NavigableMap<Long, Task> bucket = buckets.get(key);
+            sources.add((afterId == null ? bucket : bucket.tailMap(afterId, false)).values().iterator());
+        }
+        if (sources.size() == 1) {
+            return sources.get(0);
+        }
+
+        Task[] heads = new Task[sources.size()];
+        for (int i = 0; i < heads.length; i++) {
+            heads[i] = sources.get(i).hasNext() ? sources.get(i).next() : null;
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                for (Task head : heads) {
+                    if (head != null) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Task next() {
+                int smallest = -1;
+                for (int i = 0; i < heads.length; i++) {
+                    if (heads[i] != null && (smallest < 0 || heads[i].getId() < heads[smallest].getId())) {
+                        smallest = i;
+                    }
+                }
+                if (smallest < 0) {
+                    throw new NoSuchElementException();
+                }
+                Task result = heads[smallest];
+                Iterator<Task> source = sources.get(smallest);
+                heads[smallest] = source.hasNext() ? source.next() : null;
+                return result;
+            }
+        };
+    }
+
+    public void clear() {
+        for (Map.Entry<E, NavigableMap<Long, Task>> bucket : buckets.entrySet()) {
+            bucket.getValue().clear();
+            counts.set(bucket.getKey().ordinal(), 0);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.alraxas.taskmanager.indexes;
+
+import com.alraxas.taskmanager.models.Task;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class TextIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final Comparator<Task> BY_ID = Comparator.comparing(Task::getId);
+
+    private final Function<Task, String> field;
+    // триграмма (три символа в нижнем регистре, упакованные в long) -> задачи, где она встречается
+    private final Map<Long, Map<Long, Task>> postings;
+    // выключенный индекс не отслеживает изменения, пока его не построят заново
+    private volatile boolean enabled = true;
+
+    public TextIndex(Function<Task, String> field) {
+        this.field = field;
+        this.postings = new ConcurrentHashMap<>();
+    }
+
+    public void add(Task task) {
+        if (!enabled) {
+            return;
+        }
+        String text = field.apply(task);
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            // compute атомарен для ключа, так что вставка не гонится с удалением пустого списка
+            postings.compute(gram(text, i), (gram, posting) -> {
+                Map<Long, Task> result = posting != null ? posting : new ConcurrentHashMap<>();
+                result.put(task.getId(), task);
+                return result;
+            });
+        }
+    }
+
+    public void remove(Task task, String text) {
+        if (!enabled || text == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            postings.computeIfPresent(gram(text, i), (gram, posting) -> {
+                posting.remove(task.getId());
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+    }
+
+    public void move(Task task, String oldText) {
+        remove(task, oldText);
+        add(task);
+    }
+
+    // Поиск подстроки без учета регистра. Кандидаты берутся из самой редкой триграммы
+    // ключевого слова и проверяются посимвольно, без создания строк в нижнем регистре.
+    // Для слов короче триграммы просматриваются все задачи. Результат упорядочен по id.
+    public List<Task> search(String keyword, Collection<Task> allTasks) {
+        Collection<Task> candidates = allTasks;
+        if (keyword.length() >= GRAM_LENGTH) {
+            candidates = rarestPosting(keyword);
+        }
+
+        List<Task> result = new ArrayList<>();
+        for (Task task : candidates) {
+            if (containsIgnoreCase(field.apply(task), keyword)) {
+                result.add(task);
+            }
+        }
+        if (candidates != allTasks) {
+            result.sort(BY_ID);
+        }
+        return result;
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    // Оценка для планировщика запросов: размер самой редкой триграммы ключевого слова;
+    // для слов короче триграммы индекс не помогает
+    public int estimate(String keyword) {
+        if (keyword.length() < GRAM_LENGTH) {
+            return Integer.MAX_VALUE;
+        }
+        return rarestPosting(keyword).size();
+    }
+
+    // Непроверенные кандидаты из самой редкой триграммы, порядок не определен
+    public Collection<Task> candidates(String keyword) {
+        return rarestPosting(keyword);
+    }
+
+    public void disable() {
+        enabled = false;
+        postings.clear();
+    }
+
+    public void enable() {
+        enabled = true;
+    }
+
+    private Collection<Task> rarestPosting(String keyword) {
+        Map<Long, Task> rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= keyword.length(); i++) {
+            Map<Long, Task> posting = postings.get(gram(keyword, i));
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            if (rarest == null || posting.size() < rarest.size()) {
+                rarest = posting;
+            }
+        }
+        return rarest.values();
+    }
+
+    private static long gram(String text, int from) {
+        long gram = 0;
+        for (int i = from; i < from + GRAM_LENGTH; i++) {
+            gram = (gram << 16) | Character.toLowerCase(text.charAt(i));
+        }
+        return gram;
+    }
+
+    public static boolean containsIgnoreCase(String text, String keyword) {
+        if (text == null) {
+            return false;
+        }
+        int last = text.length() - keyword.length();
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < keyword.length()
+                    && Character.toLowerCase(text.charAt(start + i)) == Character.toLowerCase(keyword.charAt(i))) {
+                i++;
+            }
+            if (i == keyword.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
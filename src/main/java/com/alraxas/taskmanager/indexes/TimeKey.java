@@ -0,0 +1,30 @@
+package com.alraxas.taskmanager.indexes;
+
+import com.alraxas.taskmanager.utils.TimeUtils;
+
+import java.time.LocalDateTime;
+
+// Ключ (время, id) для индексов по времени: время хранится секундами от эпохи и наносекундами,
+// id различает элементы с одинаковым временем
+class TimeKey implements Comparable<TimeKey> {
+    private final long seconds;
+    private final int nanos;
+    private final long id;
+
+    TimeKey(LocalDateTime time, long id) {
+        this.seconds = TimeUtils.toEpochSecond(time);
+        this.nanos = TimeUtils.toNanoOfSecond(time);
+        this.id = id;
+    }
+
+    // Ключ, который меньше любого ключа с этим же временем
+    static TimeKey lowest(LocalDateTime time) {
+        return new TimeKey(time, Long.MIN_VALUE);
+    }
+
+    @Override
+    public int compareTo(TimeKey other) {
+        int byTime = TimeUtils.compare(seconds, nanos, other.seconds, other.nanos);
+        return byTime != 0 ? byTime : Long.compare(id, other.id);
+    }
+}
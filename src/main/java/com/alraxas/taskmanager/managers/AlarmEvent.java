@@ -0,0 +1,46 @@
+package com.alraxas.taskmanager.managers;
+
+import com.alraxas.taskmanager.models.Alarm;
+
+import java.time.LocalDateTime;
+
+public class AlarmEvent {
+    private final AlarmManager alarmManager;
+    private final Alarm alarm;
+    private final LocalDateTime scheduledTime;
+    private final long firedAtNanos;
+    private long deliveredAtNanos;
+
+    AlarmEvent(AlarmManager alarmManager, Alarm alarm, LocalDateTime scheduledTime, long firedAtNanos) {
+        this.alarmManager = alarmManager;
+        this.alarm = alarm;
+        this.scheduledTime = scheduledTime;
+        this.firedAtNanos = firedAtNanos;
+    }
+
+    public Alarm getAlarm() {
+        return alarm;
+    }
+
+    public LocalDateTime getScheduledTime() {
+        return scheduledTime;
+    }
+
+    public long getFiredAtNanos() {
+        return firedAtNanos;
+    }
+
+    public long getDeliveryLatencyNanos() {
+        return deliveredAtNanos - firedAtNanos;
+    }
+
+    // Откладывает сработавший будильник, в том числе уже выключенный одноразовый
+    public boolean snooze(int minutes) {
+        alarm.activate();
+        return alarmManager.snoozeAlarm(alarm.getId(), minutes);
+    }
+
+    void markDelivered() {
+        this.deliveredAtNanos = System.nanoTime();
+    }
+}
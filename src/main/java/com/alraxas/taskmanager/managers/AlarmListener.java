@@ -0,0 +1,7 @@
+package com.alraxas.taskmanager.managers;
+
+public interface AlarmListener {
+
+    // Вызывается в потоке рассылки, а не в потоке планировщика, поэтому может блокироваться
+    void onAlarm(AlarmEvent event);
+}
@@ -1,129 +1,422 @@
 package com.alraxas.taskmanager.managers;
 
+import com.alraxas.taskmanager.enums.EventType;
+import com.alraxas.taskmanager.events.ConsoleEventSink;
+import com.alraxas.taskmanager.events.EventSink;
+import com.alraxas.taskmanager.indexes.AlarmTimeIndex;
+import com.alraxas.taskmanager.metrics.AlarmCheckEvent;
+import com.alraxas.taskmanager.metrics.AlarmFiredEvent;
+import com.alraxas.taskmanager.metrics.AlarmMetrics;
 import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.AlarmChangeListener;
+import com.alraxas.taskmanager.models.RecurrenceRule;
+import com.alraxas.taskmanager.queries.Page;
+import com.alraxas.taskmanager.schedulers.ShardStatistics;
+import com.alraxas.taskmanager.schedulers.ShardedAlarmScheduler;
+import com.alraxas.taskmanager.stores.PersistentIdMap;
 import com.alraxas.taskmanager.utils.ConsoleUtils;
 import com.alraxas.taskmanager.utils.TimeUtils;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-
-public class AlarmManager {
-    private List<Alarm> alarms;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Потокобезопасен: будильники можно менять из любых потоков одновременно с планировщиком
+public final class AlarmManager {
+    private static final int DEFAULT_DISPATCH_THREADS = 64;
+    private static final int DEFAULT_DISPATCH_QUEUE_CAPACITY = 10_000;
+    private static final int DEFAULT_SCHEDULER_SHARDS = Runtime.getRuntime().availableProcessors();
+
+    private Map<Long, Alarm> alarms; // id -> alarm, поиск за O(1)
+    private AtomicReference<PersistentIdMap<Alarm>> published; // те же будильники в порядке id, неизменяемыми версиями
     private AtomicLong idCounter;
-    private Timer alarmTimer;
+    private ShardedAlarmScheduler scheduler;
+    private List<AlarmListener> listeners;
+    private ThreadPoolExecutor dispatcher;
+    private AtomicLong deliveredCount;
+    private AtomicLong droppedCount;
+    private AtomicLong failedCount;
+    private AtomicLong maxDeliveryLatencyNanos;
+    private AtomicInteger activeCount;
+    private AtomicInteger recurringCount;
+    private AlarmTimeIndex activeByTime; // активные будильники - для "сегодня"
+    private AlarmTimeIndex expirableByTime; // неактивные одноразовые - для "истекших"
+    private volatile boolean statisticsCheck;
+    private volatile EventSink eventSink;
+    private volatile Clock clock;
+    private final AlarmMetrics metrics = new AlarmMetrics();
+    private List<AlarmChangeListener> changeListeners;
+
+    // поддерживает счетчики статистики и очередь срабатываний при изменении будильников
+    // и пересылает изменения внешним слушателям
+    private final AlarmChangeListener alarmUpdater = new AlarmChangeListener() {
+        @Override
+        public void onStateChanged(Alarm alarm, boolean wasActive, boolean wasRecurring) {
+            activeCount.addAndGet((alarm.isActive() ? 1 : 0) - (wasActive ? 1 : 0));
+            recurringCount.addAndGet((alarm.isRecurring() ? 1 : 0) - (wasRecurring ? 1 : 0));
+            placeByTime(alarm, alarm.getAlarmTime());
+            if (alarm.isActive() != wasActive) {
+                scheduler.schedule(alarm);
+            }
+            for (AlarmChangeListener listener : changeListeners) {
+                listener.onStateChanged(alarm, wasActive, wasRecurring);
+            }
+        }
+
+        @Override
+        public void onTimeChanged(Alarm alarm, LocalDateTime oldAlarmTime) {
+            placeByTime(alarm, oldAlarmTime);
+            scheduler.schedule(alarm);
+            for (AlarmChangeListener listener : changeListeners) {
+                listener.onTimeChanged(alarm, oldAlarmTime);
+            }
+        }
+
+        @Override
+        public void onMessageChanged(Alarm alarm, String oldMessage) {
+            for (AlarmChangeListener listener : changeListeners) {
+                listener.onMessageChanged(alarm, oldMessage);
+            }
+        }
+    };
 
     public AlarmManager() {
-        this.alarms = new ArrayList<>();
+        this(DEFAULT_DISPATCH_THREADS, DEFAULT_DISPATCH_QUEUE_CAPACITY);
+        addAlarmListener(new ConsoleAlarmListener());
+    }
+
+    // Без слушателей по умолчанию; сработавшие будильники рассылаются пулом виртуальных потоков
+    // размером dispatchThreads с очередью на dispatchQueueCapacity событий
+    public AlarmManager(int dispatchThreads, int dispatchQueueCapacity) {
+        this(dispatchThreads, dispatchQueueCapacity, TimeUtils.getClock());
+    }
+
+    // Планировщик, проверки и запросы берут время из clock, по одному снимку на проход
+    public AlarmManager(int dispatchThreads, int dispatchQueueCapacity, Clock clock) {
+        this(dispatchThreads, dispatchQueueCapacity, clock, DEFAULT_SCHEDULER_SHARDS);
+    }
+
+    // schedulerShards - число независимых планировщиков со своими потоками (по умолчанию по ядру)
+    public AlarmManager(int dispatchThreads, int dispatchQueueCapacity, Clock clock, int schedulerShards) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock can not be null");
+        }
+        this.clock = clock;
+        this.alarms = new ConcurrentHashMap<>();
+        this.published = new AtomicReference<>(PersistentIdMap.empty());
+        this.activeCount = new AtomicInteger();
+        this.recurringCount = new AtomicInteger();
+        this.activeByTime = new AlarmTimeIndex();
+        this.expirableByTime = new AlarmTimeIndex();
         this.idCounter = new AtomicLong(1);
+        this.scheduler = new ShardedAlarmScheduler("AlarmChecker", schedulerShards, this::now, this::checkAlarm,
+                (alarm, e) -> eventSink.publish(EventType.ALARM_CHECK_FAILED, alarm.getId(), e));
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(dispatchQueueCapacity),
+                Thread.ofVirtual().name("AlarmDispatcher-", 1).factory());
+        this.dispatcher.allowCoreThreadTimeOut(true);
+        this.deliveredCount = new AtomicLong();
+        this.droppedCount = new AtomicLong();
+        this.failedCount = new AtomicLong();
+        this.maxDeliveryLatencyNanos = new AtomicLong();
+        this.eventSink = new ConsoleEventSink();
+        this.changeListeners = new CopyOnWriteArrayList<>();
+    }
+
+    // Слушатели получают добавление, удаление и каждое изменение будильников менеджера
+    public void addChangeListener(AlarmChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(AlarmChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    public void setClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock can not be null");
+        }
+        this.clock = clock;
+        // спящие шарды пересчитывают ожидание по новым часам
+        scheduler.wakeUp();
+    }
+
+    // Часы менеджера - их же нужно передавать в ListingRenderer и ConsoleUtils.printList
+    public Clock getClock() {
+        return clock;
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    public void addAlarmListener(AlarmListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeAlarmListener(AlarmListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void store(Alarm alarm) {
+        Alarm[] previous = new Alarm[1];
+        // как в TaskManager.store: замена и публикация версии - один шаг для этого id
+        alarms.compute(alarm.getId(), (id, current) -> {
+            previous[0] = current;
+            published.updateAndGet(version -> version.with(id, alarm));
+            return alarm;
+        });
+        if (previous[0] != null && previous[0] != alarm) {
+            unregister(previous[0]);
+        }
+        synchronized (alarm) {
+            // будильник уже успели удалить: регистрировать его не нужно
+            if (alarms.get(alarm.getId()) != alarm) {
+                return;
+            }
+            countAlarm(alarm, 1);
+            placeByTime(alarm, null);
+            alarm.setChangeListener(alarmUpdater);
+            scheduler.schedule(alarm);
+            for (AlarmChangeListener listener : changeListeners) {
+                listener.onAlarmAdded(alarm);
+            }
+        }
+    }
+
+    private void unregister(Alarm alarm) {
+        synchronized (alarm) {
+            // будильник удалили раньше, чем он был зарегистрирован
+            if (alarm.getChangeListener() != alarmUpdater) {
+                return;
+            }
+            for (AlarmChangeListener listener : changeListeners) {
+                listener.onAlarmRemoved(alarm);
+            }
+            alarm.setChangeListener(null);
+            scheduler.cancel(alarm);
+            countAlarm(alarm, -1);
+            activeByTime.remove(alarm, alarm.getAlarmTime());
+            expirableByTime.remove(alarm, alarm.getAlarmTime());
+        }
+    }
+
+    // Кладет будильник в индекс по времени, соответствующий его состоянию; oldAlarmTime -
+    // время, под которым он лежал в индексах до изменения (null - еще нигде не лежал)
+    private void placeByTime(Alarm alarm, LocalDateTime oldAlarmTime) {
+        if (oldAlarmTime != null) {
+            activeByTime.remove(alarm, oldAlarmTime);
+            expirableByTime.remove(alarm, oldAlarmTime);
+        }
+        if (alarm.isActive()) {
+            activeByTime.add(alarm);
+        } else if (!alarm.isRecurring()) {
+            expirableByTime.add(alarm);
+        }
+    }
+
+    private void countAlarm(Alarm alarm, int delta) {
+        if (alarm.isActive()) activeCount.addAndGet(delta);
+        if (alarm.isRecurring()) recurringCount.addAndGet(delta);
     }
 
     public Alarm setAlarm(Alarm alarm) {
-        alarms.add(alarm);
-        ConsoleUtils.printLine("Alarm is set: " + alarm.getFormattedAlarmTime());
+        long start = System.nanoTime();
+        idCounter.accumulateAndGet(alarm.getId() + 1, Math::max);
+        store(alarm);
+        eventSink.publish(EventType.ALARM_SET, alarm.getId(), alarm.getAlarmTime());
+        metrics.recordAdd(start);
         return alarm;
     }
 
     public Alarm setAlarm(String message, LocalDateTime alarmTime) {
-        Alarm alarm = new Alarm(idCounter.getAndIncrement(), message, alarmTime);
-        alarms.add(alarm);
-        ConsoleUtils.printLine("Alarm is set: " + alarm.getFormattedAlarmTime());
+        long start = System.nanoTime();
+        Alarm alarm = new Alarm(idCounter.getAndIncrement(), message, alarmTime, true, null, now(), null);
+        store(alarm);
+        eventSink.publish(EventType.ALARM_SET, alarm.getId(), alarm.getAlarmTime());
+        metrics.recordAdd(start);
         return alarm;
     }
 
     public Alarm setAlarm(String message, LocalDateTime alarmTime, boolean isRecurring) {
-        Alarm alarm = new Alarm(idCounter.getAndIncrement(), message, alarmTime, isRecurring);
-        alarms.add(alarm);
-        ConsoleUtils.printLine("Alarm is set: " + alarm.getFormattedAlarmTime() +
-                (isRecurring ? " (repeated)" : ""));
+        long start = System.nanoTime();
+        Alarm alarm = new Alarm(idCounter.getAndIncrement(), message, alarmTime, true,
+                isRecurring ? RecurrenceRule.DAILY : null, now(), null);
+        store(alarm);
+        eventSink.publish(isRecurring ? EventType.ALARM_SET_RECURRING : EventType.ALARM_SET,
+                alarm.getId(), alarm.getAlarmTime());
+        metrics.recordAdd(start);
+        return alarm;
+    }
+
+    public Alarm setAlarm(String message, LocalDateTime alarmTime, RecurrenceRule recurrence) {
+        long start = System.nanoTime();
+        Alarm alarm = new Alarm(idCounter.getAndIncrement(), message, alarmTime, true, recurrence, now(), null);
+        store(alarm);
+        eventSink.publish(recurrence != null ? EventType.ALARM_SET_RECURRING : EventType.ALARM_SET,
+                alarm.getId(), alarm.getAlarmTime());
+        metrics.recordAdd(start);
         return alarm;
     }
 
     public Alarm setQuickAlarm(String message, String timeString) {
-        Alarm alarm = new Alarm(idCounter.getAndIncrement(), message, timeString);
-        alarms.add(alarm);
-        ConsoleUtils.printLine("Alarm is set on: " + timeString);
+        long start = System.nanoTime();
+        LocalDateTime now = now();
+        Alarm alarm = new Alarm(idCounter.getAndIncrement(), message, TimeUtils.parseTimeToday(timeString, now),
+                true, null, now, null);
+        store(alarm);
+        eventSink.publish(EventType.ALARM_SET_QUICK, alarm.getId(), timeString);
+        metrics.recordAdd(start);
         return alarm;
     }
 
+    public int addAlarms(Collection<Alarm> newAlarms) {
+        long maxId = 0;
+        for (Alarm alarm : newAlarms) {
+            store(alarm);
+            maxId = Math.max(maxId, alarm.getId());
+        }
+        long nextId = maxId + 1;
+        idCounter.accumulateAndGet(nextId, Math::max);
+        eventSink.publish(EventType.ALARMS_ADDED, newAlarms.size(), null);
+        return newAlarms.size();
+    }
+
+    public int restoreAlarms(Collection<Alarm> restored, long nextId) {
+        int restoredCount = addAlarms(restored);
+        idCounter.accumulateAndGet(nextId, Math::max);
+        return restoredCount;
+    }
+
     public boolean removeAlarm(Long alarmId) {
-        boolean removed = alarms.removeIf(alarm -> alarm.getId().equals(alarmId));
+        long start = System.nanoTime();
+        Alarm[] alarm = new Alarm[1];
+        alarms.computeIfPresent(alarmId, (id, current) -> {
+            alarm[0] = current;
+            published.updateAndGet(version -> version.without(id, current));
+            return null;
+        });
+        boolean removed = alarm[0] != null;
         if (removed) {
-            ConsoleUtils.printLine("Alarm #" + alarmId + " is deleted");
+            unregister(alarm[0]);
+            eventSink.publish(EventType.ALARM_DELETED, alarmId, null);
         } else {
-            ConsoleUtils.printError("Alarm #" + alarmId + " is not found");
+            eventSink.publish(EventType.ALARM_NOT_FOUND, alarmId, null);
         }
+        metrics.recordRemove(start);
         return removed;
     }
 
     public Alarm getAlarmById(Long alarmId) {
-        for (Alarm alarm : alarms) {
-            if (alarm.getId().equals(alarmId)) {
-                return alarm;
-            }
-        }
-        return null;
+        return alarms.get(alarmId);
     }
 
     public boolean activateAlarm(Long alarmId) {
+        long start = System.nanoTime();
         Alarm alarm = getAlarmById(alarmId);
         if (alarm != null) {
             alarm.activate();
-            ConsoleUtils.printLine("Alarm #" + alarmId + " is activated");
+            eventSink.publish(EventType.ALARM_ACTIVATED, alarmId, null);
+            metrics.recordUpdate(start);
             return true;
         }
+        metrics.recordUpdate(start);
         return false;
     }
 
     public boolean deactivateAlarm(Long alarmId) {
+        long start = System.nanoTime();
         Alarm alarm = getAlarmById(alarmId);
         if (alarm != null) {
             alarm.deactivate();
-            ConsoleUtils.printLine("Alarm #" + alarmId + " is deactivated");
+            eventSink.publish(EventType.ALARM_DEACTIVATED, alarmId, null);
+            metrics.recordUpdate(start);
             return true;
         }
+        metrics.recordUpdate(start);
         return false;
     }
 
     public boolean toggleAlarm(Long alarmId) {
+        long start = System.nanoTime();
         Alarm alarm = getAlarmById(alarmId);
         if (alarm != null) {
             alarm.toggle();
             String status = alarm.isActive() ? "activated" : "deactivated";
-            ConsoleUtils.printLine("Alarm #" + alarmId + " " + status);
+            eventSink.publish(EventType.ALARM_TOGGLED, alarmId, status);
+            metrics.recordUpdate(start);
             return true;
         }
+        metrics.recordUpdate(start);
         return false;
     }
 
     public boolean snoozeAlarm(Long alarmId, int minutes) {
+        long start = System.nanoTime();
         Alarm alarm = getAlarmById(alarmId);
         if (alarm != null && alarm.isActive()) {
-            alarm.snooze(minutes);
-            ConsoleUtils.printLine("Alarm #" + alarmId + " is postponed for " + minutes + " minutes");
+            alarm.snooze(minutes, now());
+            eventSink.publish(EventType.ALARM_SNOOZED, alarmId, minutes);
+            metrics.recordUpdate(start);
             return true;
         }
+        metrics.recordUpdate(start);
         return false;
     }
 
+    // Страница будильников после afterId (null - с начала), как TaskManager.page
+    public Page<Alarm> page(Predicate<Alarm> filter, Long afterId, int limit) {
+        return metrics.query(System.nanoTime(),
+                Page.collect(iterateAlarms(afterId), filter, limit, Alarm::getId));
+    }
+
+    // Согласованный снимок всех будильников на момент вызова за O(1), без копирования
+    public PersistentIdMap<Alarm> snapshot() {
+        return published.get();
+    }
+
+    public Stream<Alarm> streamAlarms() {
+        return published.get().values().stream();
+    }
+
+    public Iterator<Alarm> iterateAlarms(Long afterId) {
+        return published.get().iterator(afterId);
+    }
+
     public List<Alarm> getAllAlarms() {
-        return new ArrayList<>(alarms);
+        return metrics.query(System.nanoTime(), published.get().values());
     }
 
     public List<Alarm> getActiveAlarms() {
+        long start = System.nanoTime();
         List<Alarm> activeAlarms = new ArrayList<>();
-        for (Alarm alarm : alarms) {
+        for (Alarm alarm : published.get().values()) {
             if (alarm.isActive()) {
                 activeAlarms.add(alarm);
             }
         }
-        return activeAlarms;
+        return metrics.query(start, activeAlarms);
     }
 
     public List<Alarm> getTodayAlarms() {
+        return metrics.query(System.nanoTime(), getTodayAlarms(now()));
+    }
+
+    private List<Alarm> getTodayAlarms(LocalDateTime now) {
         List<Alarm> todayAlarms = new ArrayList<>();
-        for (Alarm alarm : alarms) {
-            if (alarm.isActive() && alarm.isToday()) {
+        for (Alarm alarm : published.get().values()) {
+            if (alarm.isActive() && alarm.isToday(now)) {
                 todayAlarms.add(alarm);
             }
         }
@@ -131,30 +424,36 @@ public class AlarmManager {
     }
 
     public List<Alarm> getUpcomingAlarms() {
+        long start = System.nanoTime();
         List<Alarm> activeAlarms = new ArrayList<>();
-        for (Alarm alarm : alarms) {
+        for (Alarm alarm : published.get().values()) {
             if (alarm.isActive()) {
                 activeAlarms.add(alarm);
             }
         }
         activeAlarms.sort(Comparator.comparing(Alarm::getAlarmTime));
-        return activeAlarms.subList(0, Math.min(5, activeAlarms.size()));
+        return metrics.query(start, activeAlarms.subList(0, Math.min(5, activeAlarms.size())));
     }
 
     public List<Alarm> getRecurringAlarms() {
+        long start = System.nanoTime();
         List<Alarm> recurringAlarms = new ArrayList<>();
-        for (Alarm alarm : alarms) {
+        for (Alarm alarm : published.get().values()) {
             if (alarm.isRecurring()) {
                 recurringAlarms.add(alarm);
             }
         }
-        return recurringAlarms;
+        return metrics.query(start, recurringAlarms);
     }
 
     public List<Alarm> getExpiredAlarms() {
+        return metrics.query(System.nanoTime(), getExpiredAlarms(now()));
+    }
+
+    private List<Alarm> getExpiredAlarms(LocalDateTime now) {
         List<Alarm> expiredAlarms = new ArrayList<>();
-        for (Alarm alarm : alarms) {
-            if (alarm.isExpired()) {
+        for (Alarm alarm : published.get().values()) {
+            if (alarm.isExpired(now)) {
                 expiredAlarms.add(alarm);
             }
         }
@@ -162,58 +461,135 @@ public class AlarmManager {
     }
 
     public List<Alarm> searchAlarmsByMessage(String keyword) {
+        long start = System.nanoTime();
         String lowerKeyword = keyword.toLowerCase();
         List<Alarm> searchedAlarms = new ArrayList<>();
-        for (Alarm alarm : alarms) {
+        for (Alarm alarm : published.get().values()) {
             if (alarm.getMessage().toLowerCase().contains(lowerKeyword)) {
                 searchedAlarms.add(alarm);
             }
         }
-        return searchedAlarms;
+        return metrics.query(start, searchedAlarms);
     }
 
-    private void triggerAlarm(Alarm alarm) {
-        ConsoleUtils.printLine("\nALARM GOES OFF!");
-        ConsoleUtils.printLine(alarm.getMessage());
-        ConsoleUtils.printLine("Time: " + alarm.getFormattedAlarmTime());
-
-        alarm.trigger();
+    // Срабатывание только меняет состояние будильника; доставка слушателям идет
+    // через пул рассылки, чтобы медленный слушатель не задерживал другие будильники
+    private void triggerAlarm(Alarm alarm, LocalDateTime now) {
+        long firedAtNanos = System.nanoTime();
+        LocalDateTime scheduledTime = alarm.getAlarmTime();
+        long lagNanos = TimeUtils.nanosBetween(scheduledTime, now);
+        metrics.recordFireLag(lagNanos);
+        AlarmFiredEvent.emit(alarm.getId(), alarm.isRecurring(), lagNanos, listeners.size());
+        alarm.trigger(now);
+
+        for (AlarmListener listener : listeners) {
+            AlarmEvent event = new AlarmEvent(this, alarm, scheduledTime, firedAtNanos);
+            try {
+                dispatcher.execute(() -> deliver(listener, event));
+            } catch (RejectedExecutionException e) {
+                // очередь рассылки полна или менеджер остановлен: планировщик не ждет,
+                // но потерянная доставка учитывается и попадает в события
+                droppedCount.incrementAndGet();
+                eventSink.publish(EventType.ALARM_DELIVERY_DROPPED, alarm.getId(), alarm.getMessage());
+            }
+        }
+    }
 
-        // Предложить отложить
-        if (alarm.isActive() && !alarm.isRecurring()) {
-            ConsoleUtils.printLine("Press Enter to postpone for 5 minutes...");
-            new Scanner(System.in).nextLine();
-            snoozeAlarm(alarm.getId(), 5);
+    // Доставленной считается только доставка, после которой слушатель завершился без ошибки
+    private void deliver(AlarmListener listener, AlarmEvent event) {
+        event.markDelivered();
+        maxDeliveryLatencyNanos.accumulateAndGet(event.getDeliveryLatencyNanos(), Math::max);
+        try {
+            listener.onAlarm(event);
+            deliveredCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            eventSink.publish(EventType.ALARM_LISTENER_FAILED, event.getAlarm().getId(), e.getMessage());
         }
     }
 
-    private void checkAlarms() {
-        for (Alarm alarm : getActiveAlarms()) {
-            if (alarm.shouldTrigger()) {
-                triggerAlarm(alarm);
-            }
+    public long getDeliveredAlarmCount() {
+        return deliveredCount.get();
+    }
+
+    public long getDroppedAlarmCount() {
+        return droppedCount.get();
+    }
+
+    // Доставки, в которых слушатель выбросил исключение
+    public long getFailedAlarmDeliveryCount() {
+        return failedCount.get();
+    }
+
+    public long getMaxDeliveryLatencyNanos() {
+        return maxDeliveryLatencyNanos.get();
+    }
+
+    // Вызывается планировщиком, когда наступило время будильника
+    private void checkAlarm(Alarm alarm) {
+        metrics.recordCheck();
+        AlarmCheckEvent event = new AlarmCheckEvent();
+        event.begin();
+        LocalDateTime now = now();
+        boolean triggered = alarm.shouldTrigger(now);
+        if (triggered) {
+            triggerAlarm(alarm, now);
+        } else {
+            // на это время будильник уже звонил: одноразовому больше ждать нечего, а повторяющийся
+            // получает следующее время по правилу и через onTimeChanged снова попадает в очередь
+            alarm.advance(now);
         }
+        event.end(alarm.getId(), triggered);
     }
 
     public void stopAlarmChecking() {
-        if (alarmTimer != null) {
-            alarmTimer.cancel();
-        }
+        scheduler.stop();
     }
 
     public void clearAllAlarms() {
         if (ConsoleUtils.confirmAction("Are you sure you want to delete all the alarms?")) {
+            alarms.values().forEach(alarm -> {
+                synchronized (alarm) {
+                    for (AlarmChangeListener listener : changeListeners) {
+                        listener.onAlarmRemoved(alarm);
+                    }
+                    alarm.setChangeListener(null);
+                }
+            });
             alarms.clear();
+            published.updateAndGet(PersistentIdMap::cleared);
+            scheduler.clear();
+            activeByTime.clear();
+            expirableByTime.clear();
+            activeCount.set(0);
+            recurringCount.set(0);
             idCounter.set(1);
-            ConsoleUtils.printLine("All alarms were deleted");
+            eventSink.publish(EventType.ALARMS_CLEARED, 0, null);
         }
     }
 
     public void shutdown() {
-        if (this.alarmTimer != null) {
-            alarmTimer.cancel();
-        }
-        ConsoleUtils.printInfo("Alarm manager is stopped");
+        scheduler.stop();
+        dispatcher.shutdown();
+        eventSink.publish(EventType.ALARM_MANAGER_STOPPED, 0, null);
+    }
+
+    // Операции, задержка срабатывания и частота проверок; регистрируются в JMX через JmxMetrics
+    public AlarmMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getActiveAlarmCount() {
+        return activeCount.get();
+    }
+
+    // Сработавшие будильники, которые ждут свободного потока рассылки
+    public int getDispatchQueueDepth() {
+        return dispatcher.getQueue().size();
+    }
+
+    public long getNextId() {
+        return idCounter.get();
     }
 
     public int getAlarmCount() {
@@ -221,27 +597,63 @@ public class AlarmManager {
     }
 
     public void startAlarmChecker() {
-        alarmTimer = new Timer("AlarmChecker", true);
-        alarmTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                checkAlarms();
-            }
-        }, 0, 1000);
+        scheduler.start();
+    }
+
+    public int getScheduledAlarmCount() {
+        return scheduler.size();
+    }
+
+    // Очередь, число срабатываний и задержка срабатывания по каждому шарду планировщика
+    public List<ShardStatistics> getSchedulerStatistics() {
+        return scheduler.getStatistics();
     }
 
     // === СТАТИСТИКА ===
     public Map<String, Integer> getStatistics() {
+        LocalDateTime now = now();
+        Map<String, Integer> stats = collectStatistics(now);
+        if (statisticsCheck) {
+            Map<String, Integer> scanned = scanStatistics(now);
+            if (!scanned.equals(stats)) {
+                throw new IllegalStateException("Statistics are out of sync: " + stats + " vs " + scanned);
+            }
+        }
+        return stats;
+    }
+
+    // Активные и повторяющиеся берутся из счетчиков. "Сегодня" и "истекшие" зависят от
+    // текущего времени и считаются по индексам времени: проходятся только сегодняшние
+    // активные будильники и неактивные одноразовые, время которых еще не наступило
+    private Map<String, Integer> collectStatistics(LocalDateTime now) {
+        LocalDateTime startOfToday = TimeUtils.startOfDay(now);
+        int today = activeByTime.countBetween(startOfToday, startOfToday.plusDays(1));
+        int expired = expirableByTime.countBefore(now);
+
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("All alarms", alarms.size());
+        stats.put("Active", activeCount.get());
+        stats.put("Today", today);
+        stats.put("Repeated", recurringCount.get());
+        stats.put("Expired", expired);
+        return stats;
+    }
+
+    // Эталонный подсчет через списочные запросы, используется только в режиме проверки
+    private Map<String, Integer> scanStatistics(LocalDateTime now) {
         Map<String, Integer> stats = new HashMap<>();
         stats.put("All alarms", alarms.size());
         stats.put("Active", getActiveAlarms().size());
-        stats.put("Today", getTodayAlarms().size());
+        stats.put("Today", getTodayAlarms(now).size());
         stats.put("Repeated", getRecurringAlarms().size());
-        stats.put("Expired", getExpiredAlarms().size());
-
+        stats.put("Expired", getExpiredAlarms(now).size());
         return stats;
     }
 
+    public void setStatisticsCheck(boolean statisticsCheck) {
+        this.statisticsCheck = statisticsCheck;
+    }
+
     public void showSummary() {
         Map<String, Integer> stats = getStatistics();
 
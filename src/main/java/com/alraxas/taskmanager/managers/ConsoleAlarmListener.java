@@ -0,0 +1,25 @@
+package com.alraxas.taskmanager.managers;
+
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.utils.ConsoleUtils;
+import com.alraxas.taskmanager.utils.TimeUtils;
+
+public class ConsoleAlarmListener implements AlarmListener {
+
+    @Override
+    public void onAlarm(AlarmEvent event) {
+        Alarm alarm = event.getAlarm();
+        // одной строкой, чтобы уведомления одновременных срабатываний не перемешивались
+        String notice = "\nALARM GOES OFF!\n" + alarm.getMessage()
+                + "\nTime: " + TimeUtils.formatDateTime(event.getScheduledTime());
+
+        // Уведомление печатается сразу, без блокировки ввода - даже когда меню ждет ввода
+        ConsoleUtils.printLine(notice);
+
+        // Предложить отложить, если есть интерактивная консоль и ее сейчас никто не читает
+        if (!alarm.isRecurring() && System.console() != null
+                && ConsoleUtils.promptEnterIfIdle("Press Enter to postpone for 5 minutes...")) {
+            event.snooze(5);
+        }
+    }
+}
@@ -1,233 +1,1003 @@
 package com.alraxas.taskmanager.managers;
 
+import com.alraxas.taskmanager.enums.EventType;
 import com.alraxas.taskmanager.enums.TaskPriority;
 import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.events.ConsoleEventSink;
+import com.alraxas.taskmanager.events.EventSink;
+import com.alraxas.taskmanager.indexes.DueDateIndex;
+import com.alraxas.taskmanager.indexes.EnumIndex;
+import com.alraxas.taskmanager.indexes.TextIndex;
+import com.alraxas.taskmanager.metrics.OperationMetrics;
+import com.alraxas.taskmanager.metrics.ScanEvent;
 import com.alraxas.taskmanager.models.Task;
+import com.alraxas.taskmanager.models.TaskChangeListener;
+import com.alraxas.taskmanager.queries.Page;
+import com.alraxas.taskmanager.queries.ParallelScan;
+import com.alraxas.taskmanager.queries.TaskQuery;
+import com.alraxas.taskmanager.stores.ColumnarTaskStore;
+import com.alraxas.taskmanager.stores.PersistentIdMap;
+import com.alraxas.taskmanager.stores.TaskSource;
 import com.alraxas.taskmanager.utils.ConsoleUtils;
 import com.alraxas.taskmanager.utils.TimeUtils;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
+// Потокобезопасен: хранилище и индексы построены на конкурентных коллекциях, поэтому
+// чтения никогда не блокируют запись, а изменения одной задачи упорядочены её монитором
 public class TaskManager {
-    private List<Task> tasks;
+    private static final Comparator<Task> BY_ID = Comparator.comparing(Task::getId);
+    private static final int PARALLEL_THRESHOLD = 100_000;
+
+    private Map<Long, Task> tasks; // id -> task, поиск за O(1)
+    // те же задачи в порядке id: каждая запись публикует новую неизменяемую версию,
+    // читатели берут текущую одним чтением ссылки и обходят её без блокировок
+    private AtomicReference<PersistentIdMap<Task>> published;
+    // те же задачи в порядке добавления (номер добавления -> задача) для getAllTasks
+    private AtomicReference<PersistentIdMap<Task>> inserted;
+    private Map<Long, Long> insertionNumbers; // id -> номер добавления
+    private AtomicLong insertionCounter;
+    private EnumIndex<TaskStatus> statusIndex;
+    private EnumIndex<TaskPriority> priorityIndex;
+    private DueDateIndex dueDateIndex;
+    private DueDateIndex openDueDateIndex; // только незавершенные задачи - для счетчика просроченных
+    private TextIndex titleIndex;
+    private TextIndex descriptionIndex;
     private AtomicLong idCounter;
+    private volatile boolean statisticsCheck;
+    private volatile boolean textIndexesReady = true;
+    private volatile ColumnarTaskStore columnarStore;
+    private final Object textIndexLock = new Object();
+    // записи загруженного снимка, которые еще не раскодированы: задача раскодируется при
+    // первом обращении по id, остальные - перед первым запросом по индексам или проходом
+    private volatile TaskSource pending;
+    private BitSet pendingTaken; // под restoreLock: записи, уже раскодированные или замененные
+    private long pendingFirstNumber; // под restoreLock: номер добавления первой записи снимка
+    private volatile int pendingCount;
+    private final Object restoreLock = new Object();
+    private volatile EventSink eventSink;
+    private volatile Clock clock;
+    private volatile ParallelScan parallelScan;
+    private final OperationMetrics metrics = new OperationMetrics("TaskManager");
+    private List<TaskChangeListener> changeListeners;
+
+    // держит вторичные индексы в актуальном состоянии при изменении задач
+    // и пересылает изменения внешним слушателям
+    private final TaskChangeListener indexUpdater = new TaskChangeListener() {
+        @Override
+        public void onStatusChanged(Task task, TaskStatus oldStatus) {
+            statusIndex.move(oldStatus, task.getTaskStatus(), task);
+            if (task.isCompleted()) {
+                openDueDateIndex.remove(task, task.getDueDate());
+            } else if (oldStatus == TaskStatus.COMPLETED) {
+                openDueDateIndex.add(task);
+            }
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onStatusChanged(task, oldStatus);
+            }
+        }
+
+        @Override
+        public void onPriorityChanged(Task task, TaskPriority oldPriority) {
+            priorityIndex.move(oldPriority, task.getTaskPriority(), task);
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onPriorityChanged(task, oldPriority);
+            }
+        }
+
+        @Override
+        public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+            dueDateIndex.move(task, oldDueDate);
+            if (!task.isCompleted()) {
+                openDueDateIndex.move(task, oldDueDate);
+            }
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onDueDateChanged(task, oldDueDate);
+            }
+        }
+
+        @Override
+        public void onTitleChanged(Task task, String oldTitle) {
+            titleIndex.move(task, oldTitle);
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onTitleChanged(task, oldTitle);
+            }
+        }
+
+        @Override
+        public void onDescriptionChanged(Task task, String oldDescription) {
+            descriptionIndex.move(task, oldDescription);
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onDescriptionChanged(task, oldDescription);
+            }
+        }
+    };
 
     public TaskManager() {
-        this.tasks = new ArrayList<>();
+        this(TimeUtils.getClock());
+    }
+
+    // Все запросы и переходы менеджера берут время из clock, по одному снимку на запрос
+    public TaskManager(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock can not be null");
+        }
+        this.clock = clock;
+        this.tasks = new ConcurrentHashMap<>();
+        this.published = new AtomicReference<>(PersistentIdMap.empty());
+        this.inserted = new AtomicReference<>(PersistentIdMap.empty());
+        this.insertionNumbers = new ConcurrentHashMap<>();
+        this.insertionCounter = new AtomicLong();
+        this.statusIndex = new EnumIndex<>(TaskStatus.class);
+        this.priorityIndex = new EnumIndex<>(TaskPriority.class);
+        this.dueDateIndex = new DueDateIndex();
+        this.openDueDateIndex = new DueDateIndex();
+        this.titleIndex = new TextIndex(Task::getTitle);
+        this.descriptionIndex = new TextIndex(Task::getDescription);
         this.idCounter = new AtomicLong(1);
+        this.eventSink = new ConsoleEventSink();
+        this.changeListeners = new CopyOnWriteArrayList<>();
+        this.parallelScan = new ParallelScan(ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+    }
+
+    // Слушатели получают добавление, удаление и каждое изменение задач менеджера
+    public void addChangeListener(TaskChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(TaskChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public void setEventSink(EventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    public void setClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock can not be null");
+        }
+        this.clock = clock;
+    }
+
+    // Часы менеджера - их же нужно передавать в ListingRenderer и ConsoleUtils.printList
+    public Clock getClock() {
+        return clock;
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    // Полные проходы (фильтры, запросы без подходящего индекса, сверка статистики) делятся
+    // на куски в пуле, если задач не меньше threshold; результаты остаются в порядке id
+    public void setParallelScan(ForkJoinPool pool, int threshold) {
+        this.parallelScan = new ParallelScan(pool, threshold);
+    }
+
+    // Колоночная копия задач вне кучи для проходов по срокам (просроченные задачи
+    // и их подсчет в статистике) без обхода объектов Task
+    public synchronized void setColumnarScans(boolean enabled) {
+        ensureRestored();
+        if (enabled == (columnarStore != null)) {
+            return;
+        }
+        if (!enabled) {
+            removeChangeListener(columnarStore);
+            columnarStore = null;
+            return;
+        }
+        ColumnarTaskStore store = new ColumnarTaskStore(Math.max(tasks.size(), 1024));
+        // сначала подписка, затем проход: изменения во время прохода не теряются,
+        // а удаленные к этому моменту задачи пропускаются
+        addChangeListener(store);
+        for (Task task : published.get().values()) {
+            synchronized (task) {
+                if (tasks.get(task.getId()) == task) {
+                    store.onTaskAdded(task);
+                }
+            }
+        }
+        columnarStore = store;
+    }
+
+    private void store(Task task) {
+        store(task, false, -1);
+    }
+
+    // number - номер добавления записи снимка, -1 - следующий по порядку
+    private void store(Task task, boolean restored, long number) {
+        Task[] previous = new Task[1];
+        // замена в хэш-таблице и обе публикуемые версии меняются под блокировкой ячейки id:
+        // удаление того же id не может вклиниться между ними и оставить задачу только в версии
+        tasks.compute(task.getId(), (id, current) -> {
+            previous[0] = current;
+            long insertion = number >= 0 ? number : insertionCounter.getAndIncrement();
+            Long replaced = insertionNumbers.put(id, insertion);
+            published.updateAndGet(version -> version.with(id, task));
+            inserted.updateAndGet(version ->
+                    (replaced != null ? version.without(replaced) : version).with(insertion, task));
+            return task;
+        });
+        if (previous[0] != null && previous[0] != task) {
+            unindex(previous[0]);
+        }
+        // под монитором задачи её переходы ждут, пока она не попадет во все индексы
+        synchronized (task) {
+            // задачу уже успели удалить: в индексы она попасть не должна
+            if (tasks.get(task.getId()) != task) {
+                return;
+            }
+            statusIndex.add(task.getTaskStatus(), task);
+            priorityIndex.add(task.getTaskPriority(), task);
+            dueDateIndex.add(task);
+            if (!task.isCompleted()) {
+                openDueDateIndex.add(task);
+            }
+            titleIndex.add(task);
+            descriptionIndex.add(task);
+            task.setChangeListener(indexUpdater);
+            for (TaskChangeListener listener : changeListeners) {
+                if (restored) {
+                    listener.onTaskRestored(task);
+                } else {
+                    listener.onTaskAdded(task);
+                }
+            }
+        }
+    }
+
+    // Задача по id: из памяти или, если она еще лежит в снимке, раскодированная из него
+    private Task find(Long taskId) {
+        Task task = tasks.get(taskId);
+        if (task != null || pending == null) {
+            return task;
+        }
+        synchronized (restoreLock) {
+            TaskSource source = pending;
+            int index = source == null ? -1 : source.indexOf(taskId);
+            if (index < 0 || pendingTaken.get(index)) {
+                return tasks.get(taskId);
+            }
+            Task restored = source.read(index);
+            take(index);
+            store(restored, true, pendingFirstNumber + index);
+            return restored;
+        }
+    }
+
+    // Все оставшиеся записи снимка попадают в хранилище и индексы - так же лениво,
+    // как текстовые индексы в ensureTextIndexes
+    private void ensureRestored() {
+        if (pending == null) {
+            return;
+        }
+        synchronized (restoreLock) {
+            TaskSource source = pending;
+            if (source == null) {
+                return;
+            }
+            for (int i = pendingTaken.nextClearBit(0); i < source.size(); i = pendingTaken.nextClearBit(i + 1)) {
+                Task restored = source.read(i);
+                take(i);
+                store(restored, true, pendingFirstNumber + i);
+            }
+            pending = null;
+            pendingTaken = null;
+        }
+    }
+
+    // Новая задача с id из снимка заменяет его запись
+    private void forgetPending(long taskId) {
+        if (pending == null) {
+            return;
+        }
+        synchronized (restoreLock) {
+            TaskSource source = pending;
+            int index = source == null ? -1 : source.indexOf(taskId);
+            if (index >= 0 && !pendingTaken.get(index)) {
+                take(index);
+            }
+        }
+    }
+
+    private void take(int index) {
+        pendingTaken.set(index);
+        pendingCount--;
+    }
+
+    private void unindex(Task task) {
+        synchronized (task) {
+            // задачу удалили раньше, чем она попала в индексы
+            if (task.getChangeListener() != indexUpdater) {
+                return;
+            }
+            for (TaskChangeListener listener : changeListeners) {
+                listener.onTaskRemoved(task);
+            }
+            task.setChangeListener(null);
+            statusIndex.remove(task.getTaskStatus(), task);
+            priorityIndex.remove(task.getTaskPriority(), task);
+            dueDateIndex.remove(task, task.getDueDate());
+            openDueDateIndex.remove(task, task.getDueDate());
+            titleIndex.remove(task, task.getTitle());
+            descriptionIndex.remove(task, task.getDescription());
+        }
     }
 
     public Task addTask(Task task) {
-        tasks.add(task);
-        ConsoleUtils.printLine("Task added: " + task.getTitle());
+        long start = System.nanoTime();
+        forgetPending(task.getId());
+        // следующие addTask не должны выдать id, уже занятый этой задачей
+        idCounter.accumulateAndGet(task.getId() + 1, Math::max);
+        store(task);
+        eventSink.publish(EventType.TASK_ADDED, task.getId(), task.getTitle());
+        metrics.recordAdd(start);
         return task;
     }
 
     public Task addTask(String title, String description) {
-        Task task = new Task(idCounter.getAndIncrement(), title, description);
-        tasks.add(task);
-        ConsoleUtils.printLine("Task added: " + task.getTitle());
+        long start = System.nanoTime();
+        Task task = new Task(idCounter.getAndIncrement(), title, description, TaskPriority.MEDIUM, null, now());
+        store(task);
+        eventSink.publish(EventType.TASK_ADDED, task.getId(), task.getTitle());
+        metrics.recordAdd(start);
         return task;
     }
 
     public Task addTask(String title, String description, TaskPriority priority) {
-        Task task = new Task(idCounter.getAndIncrement(), title, description, priority);
-        tasks.add(task);
-        ConsoleUtils.printLine("Task added: " + task.getTitle());
+        long start = System.nanoTime();
+        Task task = new Task(idCounter.getAndIncrement(), title, description, priority, null, now());
+        store(task);
+        eventSink.publish(EventType.TASK_ADDED, task.getId(), task.getTitle());
+        metrics.recordAdd(start);
         return task;
     }
 
     public Task addTask(String title, String description, TaskPriority priority, LocalDateTime dueDate) {
-        Task task = new Task(idCounter.getAndIncrement(), title, description, priority, dueDate);
-        tasks.add(task);
-        ConsoleUtils.printLine("Task added: " + task.getTitle());
+        long start = System.nanoTime();
+        Task task = new Task(idCounter.getAndIncrement(), title, description, priority, dueDate, now());
+        store(task);
+        eventSink.publish(EventType.TASK_ADDED, task.getId(), task.getTitle());
+        metrics.recordAdd(start);
         return task;
     }
 
-    public boolean removeTask(Long taskId) {
-        Iterator<Task> iterator = tasks.iterator();
-        boolean removed = false;
-        while (iterator.hasNext()) {
-            if (iterator.next().getId().equals(taskId)) {
-                iterator.remove();
-                removed = true;
-            }
+    private boolean discard(Long taskId) {
+        find(taskId);
+        Task[] removed = new Task[1];
+        tasks.computeIfPresent(taskId, (id, current) -> {
+            removed[0] = current;
+            Long insertion = insertionNumbers.remove(id);
+            published.updateAndGet(version -> version.without(id, current));
+            inserted.updateAndGet(version -> version.without(insertion, current));
+            return null;
+        });
+        if (removed[0] == null) {
+            return false;
         }
+        unindex(removed[0]);
+        return true;
+    }
+
+    public boolean removeTask(Long taskId) {
+        long start = System.nanoTime();
+        boolean removed = discard(taskId);
+        metrics.recordRemove(start);
         if (removed) {
-            ConsoleUtils.printLine("Task #" + taskId + " deleted");
+            eventSink.publish(EventType.TASK_DELETED, taskId, null);
         } else {
-            ConsoleUtils.printLine("Task #" + taskId + " not found");
+            eventSink.publish(EventType.TASK_NOT_FOUND, taskId, null);
         }
         return removed;
     }
 
     public Task getTaskById(Long taskId) {
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                return task;
-            }
-        }
-        return null;
+        return find(taskId);
     }
 
     public boolean updateTask(Long taskId, String title, String description, TaskPriority priority) {
+        long start = System.nanoTime();
         Task task = getTaskById(taskId);
         if (task != null) {
             task.setTitle(title);
             task.setDescription(description);
             task.setTaskPriority(priority);
-            ConsoleUtils.printLine("Task #" + taskId + " updated");
+            eventSink.publish(EventType.TASK_UPDATED, taskId, null);
+            metrics.recordUpdate(start);
             return true;
         }
-        ConsoleUtils.printLine("Task #" + taskId + " not found");
+        eventSink.publish(EventType.TASK_NOT_FOUND, taskId, null);
+        metrics.recordUpdate(start);
         return false;
     }
 
     public boolean markTaskInProgress(Long taskId) {
+        long start = System.nanoTime();
         Task task = getTaskById(taskId);
         if (task != null) {
             task.markInProgress();
-            ConsoleUtils.printLine("Task #" + taskId + " in progress");
+            eventSink.publish(EventType.TASK_IN_PROGRESS, taskId, null);
+            metrics.recordUpdate(start);
             return true;
         }
+        metrics.recordUpdate(start);
         return false;
     }
 
     public boolean completeTask(Long taskId) {
+        long start = System.nanoTime();
         Task task = getTaskById(taskId);
         if (task != null) {
-            task.markCompleted();
-            ConsoleUtils.printLine("Task #" + taskId + " done");
+            task.markCompleted(now());
+            eventSink.publish(EventType.TASK_COMPLETED, taskId, null);
+            metrics.recordUpdate(start);
             return true;
         }
+        metrics.recordUpdate(start);
         return false;
     }
 
     public boolean cancelTask(Long taskId) {
+        long start = System.nanoTime();
         Task task = getTaskById(taskId);
         if (task != null) {
             task.markCancelled();
-            ConsoleUtils.printLine("Task #" + taskId + " cancelled");
+            eventSink.publish(EventType.TASK_CANCELLED, taskId, null);
+            metrics.recordUpdate(start);
             return true;
         }
+        metrics.recordUpdate(start);
         return false;
     }
 
-    public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks);
+    // === ПАКЕТНЫЕ ОПЕРАЦИИ ===
+    // Один проход по пакету и одно итоговое событие вместо события на каждую задачу
+
+    public int addTasks(Collection<Task> newTasks) {
+        long maxId = 0;
+        for (Task task : newTasks) {
+            forgetPending(task.getId());
+            store(task);
+            maxId = Math.max(maxId, task.getId());
+        }
+        // следующие addTask не должны выдать id, уже занятый импортированной задачей
+        long nextId = maxId + 1;
+        idCounter.accumulateAndGet(nextId, Math::max);
+        eventSink.publish(EventType.TASKS_ADDED, newTasks.size(), null);
+        return newTasks.size();
     }
 
-    public List<Task> getActiveTasks() {
-        List<Task> activeTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (!task.isCompleted() && task.getTaskStatus() != TaskStatus.CANCELLED) {
-                activeTasks.add(task);
+    // Загрузка снимка из готовых задач: они сразу попадают в хранилище и индексы по статусу,
+    // приоритету и сроку, а текстовые индексы строятся при первом поиске
+    public int restoreTasks(Collection<Task> restored, long nextId) {
+        synchronized (textIndexLock) {
+            textIndexesReady = false;
+            titleIndex.disable();
+            descriptionIndex.disable();
+        }
+        int restoredCount = addTasks(restored);
+        idCounter.accumulateAndGet(nextId, Math::max);
+        return restoredCount;
+    }
+
+    // Загрузка снимка без раскодирования: записи читаются из source по мере обращения
+    // к задачам, а все индексы строятся при первом запросе, которому они нужны
+    public int restoreTasks(TaskSource source, long nextId) {
+        synchronized (textIndexLock) {
+            textIndexesReady = false;
+            titleIndex.disable();
+            descriptionIndex.disable();
+        }
+        synchronized (restoreLock) {
+            ensureRestored();
+            pendingTaken = new BitSet(source.size());
+            pendingCount = source.size();
+            // записи снимка занимают места в порядке добавления сразу, в порядке снимка,
+            // даже если раскодируются позже
+            pendingFirstNumber = insertionCounter.getAndAdd(source.size());
+            pending = source;
+        }
+        idCounter.accumulateAndGet(nextId, Math::max);
+        eventSink.publish(EventType.TASKS_ADDED, source.size(), null);
+        return source.size();
+    }
+
+    public int removeTasks(Collection<Long> taskIds) {
+        int removed = 0;
+        for (Long taskId : taskIds) {
+            if (discard(taskId)) {
+                removed++;
             }
         }
-        return activeTasks;
+        eventSink.publish(EventType.TASKS_DELETED, removed, null);
+        return removed;
     }
 
-    public List<Task> getCompletedTasks() {
-        List<Task> completedTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (task.isCompleted() && task.getTaskStatus() != TaskStatus.CANCELLED) {
-                completedTasks.add(task);
+    public int completeTasks(Collection<Long> taskIds) {
+        LocalDateTime now = now();
+        int completed = applyToTasks(taskIds, task -> task.markCompleted(now));
+        eventSink.publish(EventType.TASKS_COMPLETED, completed, null);
+        return completed;
+    }
+
+    public int cancelTasks(Collection<Long> taskIds) {
+        int cancelled = applyToTasks(taskIds, Task::markCancelled);
+        eventSink.publish(EventType.TASKS_CANCELLED, cancelled, null);
+        return cancelled;
+    }
+
+    // cancelWhere и removeWhere всегда последовательны: условие вызывается в вызывающем
+    // потоке по порядку id, и задача меняется сразу. Обход идет по опубликованной версии
+    // хранилища, которую эти изменения не затрагивают
+    public int cancelWhere(Predicate<Task> condition) {
+        ensureRestored();
+        int cancelled = 0;
+        for (Task task : published.get().values()) {
+            if (condition.test(task) && task.markCancelled()) {
+                cancelled++;
             }
         }
-        return completedTasks;
+        eventSink.publish(EventType.TASKS_CANCELLED, cancelled, null);
+        return cancelled;
     }
 
-    public List<Task> getTasksByPriority(TaskPriority priority) {
-        List<Task> priorityTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (task.getTaskPriority().equals(priority)) {
-                priorityTasks.add(task);
+    public int removeWhere(Predicate<Task> condition) {
+        ensureRestored();
+        int removed = 0;
+        for (Task task : published.get().values()) {
+            if (condition.test(task) && discard(task.getId())) {
+                removed++;
             }
         }
-        return priorityTasks;
+        eventSink.publish(EventType.TASKS_DELETED, removed, null);
+        return removed;
     }
 
-    public List<Task> getOverdueTasks() {
-        List<Task> isOverdueTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (task.isOverdue()) {
-                isOverdueTasks.add(task);
+    // Считает только настоящие переходы: уже завершенные или отмененные задачи
+    // и повторные id в пакете не учитываются
+    private int applyToTasks(Collection<Long> taskIds, Predicate<Task> transition) {
+        int changed = 0;
+        for (Long taskId : taskIds) {
+            Task task = find(taskId);
+            if (task != null && transition.test(task)) {
+                changed++;
             }
         }
-        return isOverdueTasks;
+        return changed;
     }
 
-    public List<Task> getTodayTasks() {
-        List<Task> isTodayTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (task.getDueDate() != null && TimeUtils.isToday(task.getDueDate())) {
-                isTodayTasks.add(task);
+    // === ПОСТРАНИЧНЫЕ ЗАПРОСЫ ===
+    // Курсор - id последнего элемента предыдущей страницы (null - с начала). Обход идет
+    // по упорядоченному хранилищу или бакетам индекса и останавливается после limit + 1
+    // подходящих задач, так что стоимость зависит от размера страницы, а не хранилища
+
+    public Page<Task> page(Predicate<Task> filter, Long afterId, int limit) {
+        ensureRestored();
+        return metrics.query(System.nanoTime(),
+                Page.collect(iterateTasks(afterId), filter, limit, Task::getId));
+    }
+
+    public Page<Task> pageByStatus(Long afterId, int limit, TaskStatus... statuses) {
+        ensureRestored();
+        return metrics.query(System.nanoTime(),
+                Page.collect(statusIndex.iterator(afterId, statuses), null, limit, Task::getId));
+    }
+
+    public Page<Task> pageByPriority(Long afterId, int limit, TaskPriority... priorities) {
+        ensureRestored();
+        return metrics.query(System.nanoTime(),
+                Page.collect(priorityIndex.iterator(afterId, priorities), null, limit, Task::getId));
+    }
+
+    // Согласованный снимок всех задач на момент вызова за O(1): последующие добавления
+    // и удаления в него не попадают. Сами задачи не копируются, изменения их полей видны
+    public PersistentIdMap<Task> snapshot() {
+        ensureRestored();
+        return published.get();
+    }
+
+    // Ленивые представления без копирования поверх текущего снимка
+    public Stream<Task> streamTasks() {
+        ensureRestored();
+        return published.get().values().stream();
+    }
+
+    public Iterator<Task> iterateTasks(Long afterId) {
+        ensureRestored();
+        return published.get().iterator(afterId);
+    }
+
+    // === СОСТАВНЫЕ ЗАПРОСЫ ===
+    // Планировщик оценивает, сколько кандидатов даст каждый подходящий индекс, и обходит
+    // самый маленький источник; остальные условия проверяются только на его кандидатах.
+    // Бакеты статусов и приоритетов знают свой размер точно, диапазон сроков считается
+    // не дальше текущей лучшей оценки, текст оценивается по самой редкой триграмме
+
+    public List<Task> query(TaskQuery query) {
+        ensureRestored();
+        return metrics.query(System.nanoTime(), runQuery(query));
+    }
+
+    private List<Task> runQuery(TaskQuery query) {
+        ScanEvent event = new ScanEvent();
+        event.begin();
+        LocalDateTime now = now();
+        QueryPlan plan = plan(query, now);
+        int limit = query.getLimit();
+        if (plan.index.equals("scan") && (query.getOrder() != null || limit == Integer.MAX_VALUE)
+                && parallelScan.isParallel(tasks.size())) {
+            // индекса нет и ранняя остановка не поможет - проходим хранилище кусками
+            List<Task> result = parallelScan.filter(published.get().values(), task -> query.matches(task, now));
+            event.end(plan.index, true, tasks.size(), result.size());
+            if (query.getOrder() != null) {
+                result.sort(query.getOrder());
+            }
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        }
+        List<Task> result = new ArrayList<>();
+        Iterator<Task> candidates = plan.source.apply(null);
+        int visited = 0;
+        if (query.getOrder() == null && plan.idOrdered) {
+            // источник уже упорядочен по id, поэтому можно остановиться на limit
+            while (result.size() < limit && candidates.hasNext()) {
+                Task task = candidates.next();
+                visited++;
+                if (query.matches(task, now)) {
+                    result.add(task);
+                }
+            }
+            event.end(plan.index, false, visited, result.size());
+            return result;
+        }
+        while (candidates.hasNext()) {
+            Task task = candidates.next();
+            visited++;
+            if (query.matches(task, now)) {
+                result.add(task);
             }
         }
-        return isTodayTasks;
+        event.end(plan.index, false, visited, result.size());
+        result.sort(query.getOrder() != null ? query.getOrder() : BY_ID);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
     }
 
-    public List<Task> getHighPriorityTasks() {
-        List<Task> highPriorityTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (task.getTaskPriority() == TaskPriority.HIGH || task.getTaskPriority() == TaskPriority.URGENT) {
-                highPriorityTasks.add(task);
+    // Страница запроса всегда упорядочена по id, порядок и limit самого запроса не применяются
+    public Page<Task> query(TaskQuery query, Long afterId, int limit) {
+        ensureRestored();
+        return metrics.query(System.nanoTime(), runPage(query, afterId, limit));
+    }
+
+    private Page<Task> runPage(TaskQuery query, Long afterId, int limit) {
+        ScanEvent event = new ScanEvent();
+        event.begin();
+        LocalDateTime now = now();
+        QueryPlan plan = plan(query, now);
+        if (plan.idOrdered) {
+            int[] visited = new int[1];
+            Page<Task> page = Page.collect(plan.source.apply(afterId), task -> {
+                visited[0]++;
+                return query.matches(task, now);
+            }, limit, Task::getId);
+            event.end(plan.index, false, visited[0], page.getItems().size());
+            return page;
+        }
+        List<Task> matched = new ArrayList<>();
+        Iterator<Task> candidates = plan.source.apply(afterId);
+        int visited = 0;
+        while (candidates.hasNext()) {
+            Task task = candidates.next();
+            visited++;
+            if ((afterId == null || task.getId() > afterId) && query.matches(task, now)) {
+                matched.add(task);
             }
         }
-        return highPriorityTasks;
+        event.end(plan.index, false, visited, matched.size());
+        matched.sort(BY_ID);
+        return Page.collect(matched.iterator(), null, limit, Task::getId);
     }
 
-    public List<Task> searchTasksByTitle(String keyword) {
-        String lowerKeyword = keyword.toLowerCase();
-        List<Task> titleTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (task.getTitle().toLowerCase().contains(lowerKeyword)) {
-                titleTasks.add(task);
+    // Имя источника, который выбрал бы планировщик: scan, status, priority, dueDate, title, description
+    public String explain(TaskQuery query) {
+        ensureRestored();
+        return plan(query, now()).index;
+    }
+
+    private QueryPlan plan(TaskQuery query, LocalDateTime now) {
+        QueryPlan best = new QueryPlan("scan", tasks.size(), true, this::iterateTasks);
+
+        Set<TaskStatus> statuses = query.getStatuses();
+        if (query.isOverdue()) {
+            // выполненная задача не бывает просроченной
+            statuses = statuses != null ? EnumSet.copyOf(statuses) : EnumSet.allOf(TaskStatus.class);
+            statuses.remove(TaskStatus.COMPLETED);
+        }
+        if (statuses != null && statuses.size() < TaskStatus.values().length) {
+            TaskStatus[] keys = statuses.toArray(new TaskStatus[0]);
+            int count = 0;
+            for (TaskStatus key : keys) {
+                count += statusIndex.count(key);
+            }
+            if (count < best.estimate) {
+                best = new QueryPlan("status", count, true, afterId -> statusIndex.iterator(afterId, keys));
+            }
+        }
+
+        Set<TaskPriority> priorities = query.getPriorities();
+        if (priorities != null && priorities.size() < TaskPriority.values().length) {
+            TaskPriority[] keys = priorities.toArray(new TaskPriority[0]);
+            int count = 0;
+            for (TaskPriority key : keys) {
+                count += priorityIndex.count(key);
             }
+            if (count < best.estimate) {
+                best = new QueryPlan("priority", count, true, afterId -> priorityIndex.iterator(afterId, keys));
+            }
+        }
+
+        LocalDateTime dueFrom = query.getDueFrom();
+        LocalDateTime dueTo = query.getDueTo();
+        if (query.isOverdue() && (dueTo == null || now.isBefore(dueTo))) {
+            dueTo = now;
+        }
+        if (dueFrom != null || dueTo != null) {
+            LocalDateTime from = dueFrom;
+            LocalDateTime to = dueTo;
+            int count = dueDateIndex.countBetween(from, to, best.estimate);
+            if (count < best.estimate) {
+                best = new QueryPlan("dueDate", count, false, afterId -> dueDateIndex.range(from, to).iterator());
+            }
+        }
+
+        String titleKeyword = query.getTitleKeyword();
+        String descriptionKeyword = query.getDescriptionKeyword();
+        if (titleKeyword != null || descriptionKeyword != null) {
+            ensureTextIndexes();
         }
-        return titleTasks;
+        if (titleKeyword != null) {
+            int count = titleIndex.estimate(titleKeyword);
+            if (count < best.estimate) {
+                best = new QueryPlan("title", count, false, afterId -> titleIndex.candidates(titleKeyword).iterator());
+            }
+        }
+        if (descriptionKeyword != null) {
+            int count = descriptionIndex.estimate(descriptionKeyword);
+            if (count < best.estimate) {
+                best = new QueryPlan("description", count, false,
+                        afterId -> descriptionIndex.candidates(descriptionKeyword).iterator());
+            }
+        }
+        return best;
+    }
+
+    private static class QueryPlan {
+        private final String index;
+        private final int estimate;
+        private final boolean idOrdered; // кандидаты идут по возрастанию id
+        private final Function<Long, Iterator<Task>> source; // afterId -> кандидаты
+
+        private QueryPlan(String index, int estimate, boolean idOrdered, Function<Long, Iterator<Task>> source) {
+            this.index = index;
+            this.estimate = estimate;
+            this.idOrdered = idOrdered;
+            this.source = source;
+        }
+    }
+
+    // На больших хранилищах условие вызывается из потоков пула и должно быть потокобезопасным
+    public List<Task> filterTasks(Predicate<Task> condition) {
+        ensureRestored();
+        long start = System.nanoTime();
+        ScanEvent event = new ScanEvent();
+        event.begin();
+        List<Task> result = parallelScan.filter(published.get().values(), condition);
+        event.end("scan", parallelScan.isParallel(tasks.size()), tasks.size(), result.size());
+        return metrics.query(start, result);
+    }
+
+    // В порядке добавления; повторное добавление id переносит задачу в конец, задачи
+    // из снимка идут в порядке снимка (по id). Неизменяемое представление без копирования
+    public List<Task> getAllTasks() {
+        ensureRestored();
+        return metrics.query(System.nanoTime(), inserted.get().values());
+    }
+
+    public List<Task> getActiveTasks() {
+        ensureRestored();
+        return metrics.query(System.nanoTime(), statusIndex.get(TaskStatus.PENDING, TaskStatus.IN_PROGRESS));
+    }
+
+    public List<Task> getCompletedTasks() {
+        ensureRestored();
+        return metrics.query(System.nanoTime(), statusIndex.get(TaskStatus.COMPLETED));
+    }
+
+    public List<Task> getTasksByPriority(TaskPriority priority) {
+        ensureRestored();
+        return metrics.query(System.nanoTime(), priorityIndex.get(priority));
+    }
+
+    public List<Task> getOverdueTasks() {
+        ensureRestored();
+        long start = System.nanoTime();
+        ColumnarTaskStore store = columnarStore;
+        if (store != null) {
+            return metrics.query(start, resolve(store.overdueIds(now())));
+        }
+        return metrics.query(start, openDueDateIndex.before(now()));
+    }
+
+    public List<Task> getTodayTasks() {
+        ensureRestored();
+        long start = System.nanoTime();
+        LocalDateTime startOfToday = TimeUtils.startOfDay(now());
+        return metrics.query(start, dueDateIndex.between(startOfToday, startOfToday.plusDays(1)));
+    }
+
+    public List<Task> getThisWeekTasks() {
+        ensureRestored();
+        long start = System.nanoTime();
+        LocalDateTime startOfWeek = TimeUtils.startOfWeek(now());
+        return metrics.query(start, dueDateIndex.between(startOfWeek, startOfWeek.plusWeeks(1)));
+    }
+
+    public List<Task> getTasksDueBetween(LocalDateTime from, LocalDateTime to) {
+        ensureRestored();
+        return metrics.query(System.nanoTime(), dueDateIndex.between(from, to));
+    }
+
+    public List<Task> getHighPriorityTasks() {
+        ensureRestored();
+        return metrics.query(System.nanoTime(), priorityIndex.get(TaskPriority.HIGH, TaskPriority.URGENT));
+    }
+
+    public List<Task> searchTasksByTitle(String keyword) {
+        long start = System.nanoTime();
+        ensureTextIndexes();
+        return metrics.query(start, textSearch("title", titleIndex, keyword));
     }
 
     public List<Task> searchTasksByDescription(String keyword) {
-        String lowerKeyword = keyword.toLowerCase();
-        List<Task> descTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (task.getDescription().toLowerCase().contains(lowerKeyword)) {
-                descTasks.add(task);
-            }
+        long start = System.nanoTime();
+        ensureTextIndexes();
+        return metrics.query(start, textSearch("description", descriptionIndex, keyword));
+    }
+
+    private List<Task> textSearch(String source, TextIndex index, String keyword) {
+        ScanEvent event = new ScanEvent();
+        event.begin();
+        List<Task> result = index.search(keyword, published.get().values());
+        if (event.isEnabled()) {
+            // оценка индекса - ровно та триграмма, кандидаты которой проверялись
+            event.end(source, false, Math.min(index.estimate(keyword), tasks.size()), result.size());
         }
-        return descTasks;
+        return result;
     }
 
     public List<Task> filterTasksByStatus(TaskStatus status) {
-        List<Task> statusTasks = new ArrayList<>(tasks.size());
-        for (Task task : tasks) {
-            if (task.getTaskStatus() == status) {
-                statusTasks.add(task);
+        ensureRestored();
+        return metrics.query(System.nanoTime(), statusIndex.get(status));
+    }
+
+    // id из колоночного прохода -> живые задачи менеджера
+    private List<Task> resolve(long[] ids) {
+        List<Task> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Task task = tasks.get(id);
+            if (task != null) {
+                result.add(task);
             }
         }
-        return statusTasks;
+        return result;
+    }
 
+    private void ensureTextIndexes() {
+        ensureRestored();
+        if (textIndexesReady) {
+            return;
+        }
+        synchronized (textIndexLock) {
+            if (textIndexesReady) {
+                return;
+            }
+            // после включения индексы ловят все новые изменения, а проход добирает остальное;
+            // под монитором задачи она либо еще в хранилище, либо уже удалена из индексов
+            titleIndex.enable();
+            descriptionIndex.enable();
+            for (Task task : published.get().values()) {
+                synchronized (task) {
+                    if (tasks.get(task.getId()) == task) {
+                        titleIndex.add(task);
+                        descriptionIndex.add(task);
+                    }
+                }
+            }
+            textIndexesReady = true;
+        }
     }
 
     public Map<String, Integer> getStatistics() {
+        ensureRestored();
+        LocalDateTime now = now();
+        Map<String, Integer> stats = collectStatistics(now);
+        if (statisticsCheck) {
+            Map<String, Integer> scanned = scanStatistics(now);
+            if (!scanned.equals(stats)) {
+                throw new IllegalStateException("Statistics are out of sync: " + stats + " vs " + scanned);
+            }
+        }
+        return stats;
+    }
+
+    // Счетчики берутся из размеров индексов, полный проход по задачам не нужен; для
+    // просроченных проходится диапазон индекса незавершенных задач - только сами просроченные
+    private Map<String, Integer> collectStatistics(LocalDateTime now) {
         Map<String, Integer> stats = new HashMap<>();
         stats.put("Total tasks", tasks.size());
-        stats.put("Active", getActiveTasks().size());
-        stats.put("Completed", getCompletedTasks().size());
-        stats.put("Overdue", getOverdueTasks().size());
-        stats.put("Urgent", getHighPriorityTasks().size());
+        stats.put("Active", statusIndex.count(TaskStatus.PENDING) + statusIndex.count(TaskStatus.IN_PROGRESS));
+        stats.put("Completed", statusIndex.count(TaskStatus.COMPLETED));
+        ColumnarTaskStore store = columnarStore;
+        stats.put("Overdue", store != null
+                ? store.countOverdue(now)
+                : openDueDateIndex.countBefore(now));
+        stats.put("Urgent", priorityIndex.count(TaskPriority.HIGH) + priorityIndex.count(TaskPriority.URGENT));
 
-        // Статистика по приоритетам
         for (TaskPriority priority : TaskPriority.values()) {
-            stats.put(priority.getDisplayName(), getTasksByPriority(priority).size());
+            stats.put(priority.getDisplayName(), priorityIndex.count(priority));
         }
 
         return stats;
     }
 
+    // Эталонный подсчет полным проходом, используется только в режиме проверки.
+    // Счетчики: active, completed, overdue, urgent, затем по одному на каждый приоритет
+    private Map<String, Integer> scanStatistics(LocalDateTime now) {
+        ScanEvent event = new ScanEvent();
+        event.begin();
+        int[] counts = parallelScan.aggregate(published.get().values(),
+                () -> new int[4 + TaskPriority.values().length],
+                (acc, task) -> {
+                    TaskStatus status = task.getTaskStatus();
+                    if (status == TaskStatus.PENDING || status == TaskStatus.IN_PROGRESS) acc[0]++;
+                    if (status == TaskStatus.COMPLETED) acc[1]++;
+                    if (task.isOverdue(now)) acc[2]++;
+                    if (task.getTaskPriority() == TaskPriority.HIGH || task.getTaskPriority() == TaskPriority.URGENT) acc[3]++;
+                    acc[4 + task.getTaskPriority().ordinal()]++;
+                },
+                (left, right) -> {
+                    for (int i = 0; i < left.length; i++) {
+                        left[i] += right[i];
+                    }
+                    return left;
+                });
+        event.end("statistics", parallelScan.isParallel(tasks.size()), tasks.size(), tasks.size());
+
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("Total tasks", tasks.size());
+        stats.put("Active", counts[0]);
+        stats.put("Completed", counts[1]);
+        stats.put("Overdue", counts[2]);
+        stats.put("Urgent", counts[3]);
+        for (TaskPriority priority : TaskPriority.values()) {
+            stats.put(priority.getDisplayName(), counts[4 + priority.ordinal()]);
+        }
+        return stats;
+    }
+
+    public void setStatisticsCheck(boolean statisticsCheck) {
+        this.statisticsCheck = statisticsCheck;
+    }
+
     public void showSummary() {
         Map<String, Integer> stats = getStatistics();
 
@@ -238,15 +1008,56 @@ public class TaskManager {
 
     }
 
+    // Число и длительность операций; регистрируются в JMX через JmxMetrics
+    public OperationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int countByStatus(TaskStatus status) {
+        ensureRestored();
+        return statusIndex.count(status);
+    }
+
+    public int countByPriority(TaskPriority priority) {
+        ensureRestored();
+        return priorityIndex.count(priority);
+    }
+
+    public long getNextId() {
+        return idCounter.get();
+    }
+
     public int getTaskCount() {
-        return tasks.size();
+        return tasks.size() + pendingCount;
     }
 
     public void clearAllTasks() {
         if (ConsoleUtils.confirmAction("Are you sure you want to delete all the issues?")) {
+            synchronized (restoreLock) {
+                pending = null;
+                pendingTaken = null;
+                pendingCount = 0;
+            }
+            tasks.values().forEach(task -> {
+                synchronized (task) {
+                    for (TaskChangeListener listener : changeListeners) {
+                        listener.onTaskRemoved(task);
+                    }
+                    task.setChangeListener(null);
+                }
+            });
             tasks.clear();
+            insertionNumbers.clear();
+            published.updateAndGet(PersistentIdMap::cleared);
+            inserted.updateAndGet(PersistentIdMap::cleared);
+            statusIndex.clear();
+            priorityIndex.clear();
+            dueDateIndex.clear();
+            openDueDateIndex.clear();
+            titleIndex.clear();
+            descriptionIndex.clear();
             idCounter.set(1);
-            ConsoleUtils.printLine("All tasks were deleted");
+            eventSink.publish(EventType.TASKS_CLEARED, 0, null);
         }
     }
 }
\ No newline at end of file
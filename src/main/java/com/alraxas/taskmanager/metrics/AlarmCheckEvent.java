@@ -0,0 +1,23 @@
+package com.alraxas.taskmanager.metrics;
+
+import jdk.jfr.*;
+
+// Проверка одного будильника планировщиком, вместе с его срабатыванием
+@Name("com.alraxas.taskmanager.AlarmCheck")
+@Label("Alarm Check")
+@Category({"Task Manager", "Alarms"})
+public class AlarmCheckEvent extends Event {
+    @Label("Alarm Id")
+    long alarmId;
+
+    @Label("Triggered")
+    boolean triggered;
+
+    public void end(long alarmId, boolean triggered) {
+        if (shouldCommit()) {
+            this.alarmId = alarmId;
+            this.triggered = triggered;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.alraxas.taskmanager.metrics;
+
+import jdk.jfr.*;
+
+// Срабатывание будильника: насколько позже своего времени он сработал и сколько
+// слушателей получат уведомление через пул рассылки
+@Name("com.alraxas.taskmanager.AlarmFired")
+@Label("Alarm Fired")
+@Category({"Task Manager", "Alarms"})
+public class AlarmFiredEvent extends Event {
+    @Label("Alarm Id")
+    long alarmId;
+
+    @Label("Recurring")
+    boolean recurring;
+
+    @Label("Lag")
+    @Timespan(Timespan.NANOSECONDS)
+    long lag;
+
+    @Label("Listeners")
+    int listeners;
+
+    public static void emit(long alarmId, boolean recurring, long lagNanos, int listeners) {
+        AlarmFiredEvent event = new AlarmFiredEvent();
+        if (event.shouldCommit()) {
+            event.alarmId = alarmId;
+            event.recurring = recurring;
+            event.lag = lagNanos;
+            event.listeners = listeners;
+            event.commit();
+        }
+    }
+}
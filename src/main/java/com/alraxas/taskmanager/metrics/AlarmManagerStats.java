@@ -0,0 +1,78 @@
+package com.alraxas.taskmanager.metrics;
+
+import com.alraxas.taskmanager.managers.AlarmManager;
+
+public class AlarmManagerStats implements AlarmManagerStatsMXBean {
+    private final AlarmManager alarmManager;
+
+    public AlarmManagerStats(AlarmManager alarmManager) {
+        this.alarmManager = alarmManager;
+    }
+
+    @Override
+    public int getAlarmCount() {
+        return alarmManager.getAlarmCount();
+    }
+
+    @Override
+    public int getActiveAlarmCount() {
+        return alarmManager.getActiveAlarmCount();
+    }
+
+    // Глубина очередей всех шардов планировщика
+    @Override
+    public int getScheduledAlarmCount() {
+        return alarmManager.getScheduledAlarmCount();
+    }
+
+    @Override
+    public int getDispatchQueueDepth() {
+        return alarmManager.getDispatchQueueDepth();
+    }
+
+    @Override
+    public long getDeliveredAlarmCount() {
+        return alarmManager.getDeliveredAlarmCount();
+    }
+
+    @Override
+    public long getDroppedAlarmCount() {
+        return alarmManager.getDroppedAlarmCount();
+    }
+
+    @Override
+    public long getFailedAlarmDeliveryCount() {
+        return alarmManager.getFailedAlarmDeliveryCount();
+    }
+
+    @Override
+    public long getAlarmChecks() {
+        return alarmManager.getMetrics().getChecks().getCount();
+    }
+
+    // Частота с предыдущего чтения этого атрибута
+    @Override
+    public double getAlarmChecksPerSecond() {
+        return alarmManager.getMetrics().getChecks().getPerSecond();
+    }
+
+    @Override
+    public long getAddCount() {
+        return alarmManager.getMetrics().getAdds().getCount();
+    }
+
+    @Override
+    public long getUpdateCount() {
+        return alarmManager.getMetrics().getUpdates().getCount();
+    }
+
+    @Override
+    public long getRemoveCount() {
+        return alarmManager.getMetrics().getRemoves().getCount();
+    }
+
+    @Override
+    public long getQueryCount() {
+        return alarmManager.getMetrics().getQueries().getCount();
+    }
+}
@@ -0,0 +1,29 @@
+package com.alraxas.taskmanager.metrics;
+
+public interface AlarmManagerStatsMXBean {
+    int getAlarmCount();
+
+    int getActiveAlarmCount();
+
+    int getScheduledAlarmCount();
+
+    int getDispatchQueueDepth();
+
+    long getDeliveredAlarmCount();
+
+    long getDroppedAlarmCount();
+
+    long getFailedAlarmDeliveryCount();
+
+    long getAlarmChecks();
+
+    double getAlarmChecksPerSecond();
+
+    long getAddCount();
+
+    long getUpdateCount();
+
+    long getRemoveCount();
+
+    long getQueryCount();
+}
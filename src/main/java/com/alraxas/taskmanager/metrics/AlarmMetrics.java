@@ -0,0 +1,28 @@
+package com.alraxas.taskmanager.metrics;
+
+// Операции менеджера будильников плюс задержка срабатывания (от времени будильника
+// до фактического срабатывания) и частота проверок планировщиком
+public class AlarmMetrics extends OperationMetrics {
+    private final LatencyHistogram fireLag = new LatencyHistogram();
+    private final EventRate checks = new EventRate();
+
+    public AlarmMetrics() {
+        super("AlarmManager");
+    }
+
+    public void recordFireLag(long lagNanos) {
+        fireLag.record(lagNanos);
+    }
+
+    public void recordCheck() {
+        checks.mark();
+    }
+
+    public LatencyHistogram getFireLag() {
+        return fireLag;
+    }
+
+    public EventRate getChecks() {
+        return checks;
+    }
+}
@@ -0,0 +1,25 @@
+package com.alraxas.taskmanager.metrics;
+
+import jdk.jfr.*;
+
+// Чтение строки с консоли или вывод на нее. Чтение включает ожидание ввода пользователя,
+// поэтому по умолчанию записываются только операции длиннее порога
+@Name("com.alraxas.taskmanager.ConsoleIo")
+@Label("Console I/O")
+@Category({"Task Manager", "Console"})
+@Threshold("1 ms")
+public class ConsoleIoEvent extends Event {
+    @Label("Direction")
+    String direction;
+
+    @Label("Characters")
+    int characters;
+
+    public void end(String direction, String text) {
+        if (shouldCommit()) {
+            this.direction = direction;
+            this.characters = text == null ? 0 : text.length();
+            commit();
+        }
+    }
+}
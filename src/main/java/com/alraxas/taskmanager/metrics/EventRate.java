@@ -0,0 +1,28 @@
+package com.alraxas.taskmanager.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Счетчик событий: запись - один инкремент LongAdder, а частота считается при чтении
+// как прирост с предыдущего чтения, поэтому читатель никогда не мешает записи
+public class EventRate {
+    private final LongAdder count = new LongAdder();
+    private long lastCount;
+    private long lastReadNanos = System.nanoTime();
+
+    public void mark() {
+        count.increment();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public synchronized double getPerSecond() {
+        long now = System.nanoTime();
+        long current = count.sum();
+        double rate = now > lastReadNanos ? (current - lastCount) * 1e9 / (now - lastReadNanos) : 0;
+        lastCount = current;
+        lastReadNanos = now;
+        return rate;
+    }
+}
@@ -0,0 +1,70 @@
+package com.alraxas.taskmanager.metrics;
+
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.managers.TaskManager;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// Регистрация метрик менеджеров в платформенном MBeanServer:
+//   com.alraxas.taskmanager:type=TaskManager,name=<name>                  - размеры и счетчики
+//   com.alraxas.taskmanager:type=TaskManager,name=<name>,histogram=add    - длительности операций
+// Возвращает имена зарегистрированных бинов для последующего unregister
+public class JmxMetrics {
+    public static final String DOMAIN = "com.alraxas.taskmanager";
+
+    public static List<ObjectName> register(String name, TaskManager taskManager) {
+        OperationMetrics metrics = taskManager.getMetrics();
+        List<ObjectName> names = new ArrayList<>();
+        String prefix = DOMAIN + ":type=TaskManager,name=" + ObjectName.quote(name);
+        registerBean(names, prefix, new TaskManagerStats(taskManager));
+        registerOperations(names, prefix, metrics);
+        return names;
+    }
+
+    public static List<ObjectName> register(String name, AlarmManager alarmManager) {
+        AlarmMetrics metrics = alarmManager.getMetrics();
+        List<ObjectName> names = new ArrayList<>();
+        String prefix = DOMAIN + ":type=AlarmManager,name=" + ObjectName.quote(name);
+        registerBean(names, prefix, new AlarmManagerStats(alarmManager));
+        registerOperations(names, prefix, metrics);
+        registerBean(names, prefix + ",histogram=fireLag", metrics.getFireLag());
+        return names;
+    }
+
+    public static void unregister(List<ObjectName> names) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : names) {
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                throw new IllegalStateException("Can not unregister " + name, e);
+            }
+        }
+    }
+
+    private static void registerOperations(List<ObjectName> names, String prefix, OperationMetrics metrics) {
+        registerBean(names, prefix + ",histogram=add", metrics.getAdds());
+        registerBean(names, prefix + ",histogram=update", metrics.getUpdates());
+        registerBean(names, prefix + ",histogram=remove", metrics.getRemoves());
+        registerBean(names, prefix + ",histogram=query", metrics.getQueries());
+    }
+
+    private static void registerBean(List<ObjectName> names, String objectName, Object bean) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, name);
+            names.add(name);
+        } catch (JMException e) {
+            // уже зарегистрированные бины этого вызова снимаются, чтобы не оставить половину
+            unregister(names);
+            throw new IllegalStateException("Can not register " + objectName, e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.alraxas.taskmanager.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Гистограмма длительностей без блокировок и без выделения памяти при записи. Значение
+// попадает в корзину "степень двойки + одна из четырех подкорзин", поэтому перцентиль
+// оценивается сверху с ошибкой не больше четверти значения, а вся гистограмма - 256 счетчиков
+public class LatencyHistogram implements LatencyHistogramMXBean {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        // CAS только когда значение больше текущего максимума, то есть редко
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - 1) * SUB_BUCKETS + sub;
+    }
+
+    // Наибольшее значение, которое попадает в корзину
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        if (exponent >= 62) {
+            return Long.MAX_VALUE;
+        }
+        int sub = bucket % SUB_BUCKETS;
+        long step = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * step - 1;
+    }
+
+    // Оценка перцентиля по снимку корзин; записи во время чтения могут в него не попасть
+    public long getPercentile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile has to be between 0 and 1");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            recorded += snapshot[i];
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getMeanNanos() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : total.sum() / recorded;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return getPercentile(0.5);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return getPercentile(0.9);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return getPercentile(0.99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return getPercentile(0.999);
+    }
+
+    // Сброс не атомарен относительно одновременных записей: несколько из них могут потеряться
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+}
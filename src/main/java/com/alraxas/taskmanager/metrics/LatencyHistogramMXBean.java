@@ -0,0 +1,19 @@
+package com.alraxas.taskmanager.metrics;
+
+public interface LatencyHistogramMXBean {
+    long getCount();
+
+    long getMeanNanos();
+
+    long getMaxNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    void reset();
+}
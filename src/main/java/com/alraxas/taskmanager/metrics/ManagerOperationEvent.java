@@ -0,0 +1,39 @@
+package com.alraxas.taskmanager.metrics;
+
+import jdk.jfr.*;
+
+// Операция менеджера в записи JFR. Длительность уже измерена для гистограмм, поэтому
+// событие фиксируется в момент завершения, а время операции лежит в поле elapsed;
+// какой именно метод менеджера был вызван, видно по стеку события
+@Name("com.alraxas.taskmanager.ManagerOperation")
+@Label("Manager Operation")
+@Category({"Task Manager", "Operations"})
+@StackTrace
+public class ManagerOperationEvent extends Event {
+    @Label("Manager")
+    String manager;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Result Size")
+    @Description("Number of returned items for queries, -1 for other operations")
+    int resultSize;
+
+    // Без активной записи shouldCommit - одна проверка флага, а само событие не покидает
+    // метод и убирается escape-анализом
+    static void emit(String manager, String operation, long elapsedNanos, int resultSize) {
+        ManagerOperationEvent event = new ManagerOperationEvent();
+        if (event.shouldCommit()) {
+            event.manager = manager;
+            event.operation = operation;
+            event.elapsed = elapsedNanos;
+            event.resultSize = resultSize;
+            event.commit();
+        }
+    }
+}
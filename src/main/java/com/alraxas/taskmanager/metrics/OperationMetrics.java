@@ -0,0 +1,75 @@
+package com.alraxas.taskmanager.metrics;
+
+import com.alraxas.taskmanager.queries.Page;
+
+import java.util.Collection;
+
+// Число и длительность операций менеджера. Включены всегда: запись стоит пары
+// атомарных инкрементов и одного System.nanoTime. Во время записи JFR каждая операция
+// дополнительно попадает в нее как ManagerOperationEvent
+public class OperationMetrics {
+    private final String manager;
+    private final LatencyHistogram adds = new LatencyHistogram();
+    private final LatencyHistogram updates = new LatencyHistogram();
+    private final LatencyHistogram removes = new LatencyHistogram();
+    private final LatencyHistogram queries = new LatencyHistogram();
+
+    public OperationMetrics(String manager) {
+        this.manager = manager;
+    }
+
+    public void recordAdd(long startNanos) {
+        record(adds, "add", startNanos, -1);
+    }
+
+    public void recordUpdate(long startNanos) {
+        record(updates, "update", startNanos, -1);
+    }
+
+    public void recordRemove(long startNanos) {
+        record(removes, "remove", startNanos, -1);
+    }
+
+    // Для однострочных запросов: return metrics.query(System.nanoTime(), index.get(...)).
+    // Аргументы вычисляются слева направо, так что начало замера берется до запроса
+    public <T> T query(long startNanos, T result) {
+        record(queries, "query", startNanos, sizeOf(result));
+        return result;
+    }
+
+    private void record(LatencyHistogram histogram, String operation, long startNanos, int resultSize) {
+        long elapsed = System.nanoTime() - startNanos;
+        histogram.record(elapsed);
+        ManagerOperationEvent.emit(manager, operation, elapsed, resultSize);
+    }
+
+    private static int sizeOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Page) {
+            return ((Page<?>) result).getItems().size();
+        }
+        return -1;
+    }
+
+    public String getManager() {
+        return manager;
+    }
+
+    public LatencyHistogram getAdds() {
+        return adds;
+    }
+
+    public LatencyHistogram getUpdates() {
+        return updates;
+    }
+
+    public LatencyHistogram getRemoves() {
+        return removes;
+    }
+
+    public LatencyHistogram getQueries() {
+        return queries;
+    }
+}
@@ -0,0 +1,35 @@
+package com.alraxas.taskmanager.metrics;
+
+import jdk.jfr.*;
+
+// Проход по задачам: какой источник выбран, сколько элементов просмотрено и сколько
+// из них попало в результат. Большой разрыв между visited и resultSize - признак того,
+// что запросу не хватает индекса
+@Name("com.alraxas.taskmanager.Scan")
+@Label("Task Scan")
+@Category({"Task Manager", "Queries"})
+@StackTrace
+public class ScanEvent extends Event {
+    @Label("Source")
+    @Description("Index or pass that produced the candidates: scan, status, priority, dueDate, title, description, statistics")
+    String source;
+
+    @Label("Parallel")
+    boolean parallel;
+
+    @Label("Visited")
+    int visited;
+
+    @Label("Result Size")
+    int resultSize;
+
+    public void end(String source, boolean parallel, int visited, int resultSize) {
+        if (shouldCommit()) {
+            this.source = source;
+            this.parallel = parallel;
+            this.visited = visited;
+            this.resultSize = resultSize;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.alraxas.taskmanager.metrics;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.managers.TaskManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Размеры хранилища берутся из счетчиков индексов при чтении атрибута, без прохода по задачам
+public class TaskManagerStats implements TaskManagerStatsMXBean {
+    private final TaskManager taskManager;
+
+    public TaskManagerStats(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    public int getTaskCount() {
+        return taskManager.getTaskCount();
+    }
+
+    @Override
+    public Map<String, Integer> getTasksByStatus() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (TaskStatus status : TaskStatus.values()) {
+            counts.put(status.name(), taskManager.countByStatus(status));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Integer> getTasksByPriority() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (TaskPriority priority : TaskPriority.values()) {
+            counts.put(priority.name(), taskManager.countByPriority(priority));
+        }
+        return counts;
+    }
+
+    @Override
+    public long getAddCount() {
+        return taskManager.getMetrics().getAdds().getCount();
+    }
+
+    @Override
+    public long getUpdateCount() {
+        return taskManager.getMetrics().getUpdates().getCount();
+    }
+
+    @Override
+    public long getRemoveCount() {
+        return taskManager.getMetrics().getRemoves().getCount();
+    }
+
+    @Override
+    public long getQueryCount() {
+        return taskManager.getMetrics().getQueries().getCount();
+    }
+}
@@ -0,0 +1,19 @@
+package com.alraxas.taskmanager.metrics;
+
+import java.util.Map;
+
+public interface TaskManagerStatsMXBean {
+    int getTaskCount();
+
+    Map<String, Integer> getTasksByStatus();
+
+    Map<String, Integer> getTasksByPriority();
+
+    long getAddCount();
+
+    long getUpdateCount();
+
+    long getRemoveCount();
+
+    long getQueryCount();
+}
@@ -6,24 +6,53 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class Alarm {
-    private Long id;
-    private String message;
-    private LocalDateTime alarmTime;
-    private boolean isActive;
-    private boolean isRecurring;
-    private LocalDateTime createdAt;
-    private LocalDateTime lastTriggered;
-
+    // изменяемые поля volatile, а изменения синхронизированы на будильнике,
+    // так что будильник можно читать и менять из разных потоков.
+    // Как и в Task, id и время хранятся примитивами, а пары секунды/наносекунды
+    // читаются без блокировки по версии timeVersion
+    private final long id;
+    private volatile String message;
+    private volatile long alarmSeconds;
+    private volatile int alarmNanos;
+    private volatile boolean isActive;
+    private volatile RecurrenceRule recurrence; // null - одноразовый будильник
+    private long createdSeconds;
+    private int createdNanos;
+    private volatile long triggeredSeconds;
+    private volatile int triggeredNanos;
+    private volatile int timeVersion;
+    private volatile AlarmChangeListener changeListener;
+
+    public Alarm(Long id, String message, LocalDateTime alarmTime, boolean isActive, RecurrenceRule recurrence) {
+        this(id, message, alarmTime, isActive, recurrence, TimeUtils.now(), null);
+    }
+
+    // Повторяющийся будильник без явного правила звонит каждый день
     public Alarm(Long id, String message, LocalDateTime alarmTime, boolean isActive, boolean isRecurring) {
+        this(id, message, alarmTime, isActive, isRecurring ? RecurrenceRule.DAILY : null);
+    }
+
+    // Будильник с полным состоянием: восстановление из журнала или создание менеджером,
+    // который передает время создания по своим часам
+    public Alarm(Long id, String message, LocalDateTime alarmTime, boolean isActive, RecurrenceRule recurrence,
+                 LocalDateTime createdAt, LocalDateTime lastTriggered) {
         validateInput(id, message, alarmTime);
 
         this.id = id;
         this.message = message;
-        this.alarmTime = alarmTime;
+        this.alarmSeconds = TimeUtils.toEpochSecond(alarmTime);
+        this.alarmNanos = TimeUtils.toNanoOfSecond(alarmTime);
         this.isActive = isActive;
-        this.isRecurring = isRecurring;
-        this.createdAt = LocalDateTime.now();
-        this.lastTriggered = null;
+        this.recurrence = recurrence;
+        this.createdSeconds = TimeUtils.toEpochSecond(createdAt);
+        this.createdNanos = TimeUtils.toNanoOfSecond(createdAt);
+        this.triggeredSeconds = TimeUtils.toEpochSecond(lastTriggered);
+        this.triggeredNanos = TimeUtils.toNanoOfSecond(lastTriggered);
+    }
+
+    public Alarm(Long id, String message, LocalDateTime alarmTime, boolean isActive, boolean isRecurring,
+                 LocalDateTime createdAt, LocalDateTime lastTriggered) {
+        this(id, message, alarmTime, isActive, isRecurring ? RecurrenceRule.DAILY : null, createdAt, lastTriggered);
     }
 
     public Alarm(Long id, String message, LocalDateTime alarmTime) {
@@ -31,7 +60,11 @@ public class Alarm {
     }
 
     public Alarm(Long id, String message, LocalDateTime alarmTime, boolean isRecurring) {
-        this(id, message, alarmTime, true, false);
+        this(id, message, alarmTime, true, isRecurring);
+    }
+
+    public Alarm(Long id, String message, LocalDateTime alarmTime, RecurrenceRule recurrence) {
+        this(id, message, alarmTime, true, recurrence);
     }
 
     public Alarm(Long id, String message, String timeString) {
@@ -59,7 +92,15 @@ public class Alarm {
     }
 
     public LocalDateTime getAlarmTime() {
-        return alarmTime;
+        while (true) {
+            int version = timeVersion;
+            long seconds = alarmSeconds;
+            int nanos = alarmNanos;
+            if (isStable(version)) {
+                return TimeUtils.fromEpochSecond(seconds, nanos);
+            }
+            Thread.onSpinWait();
+        }
     }
 
     public boolean isActive() {
@@ -67,110 +108,263 @@ public class Alarm {
     }
 
     public boolean isRecurring() {
-        return isRecurring;
+        return recurrence != null;
+    }
+
+    public RecurrenceRule getRecurrence() {
+        return recurrence;
     }
 
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return TimeUtils.fromEpochSecond(createdSeconds, createdNanos);
+    }
+
+    public LocalDateTime getLastTriggered() {
+        while (true) {
+            int version = timeVersion;
+            long seconds = triggeredSeconds;
+            int nanos = triggeredNanos;
+            if (isStable(version)) {
+                return TimeUtils.fromEpochSecond(seconds, nanos);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Знак сравнения времени срабатывания с моментом, без создания LocalDateTime
+    private int compareAlarmTime(LocalDateTime moment) {
+        long momentSeconds = TimeUtils.toEpochSecond(moment);
+        int momentNanos = moment.getNano();
+        while (true) {
+            int version = timeVersion;
+            long seconds = alarmSeconds;
+            int nanos = alarmNanos;
+            if (isStable(version)) {
+                return TimeUtils.compare(seconds, nanos, momentSeconds, momentNanos);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // четная версия, не изменившаяся за время чтения, - пара прочитана целиком
+    private boolean isStable(int version) {
+        return (version & 1) == 0 && version == timeVersion;
     }
 
     public boolean isDue() {
-        return isActive && LocalDateTime.now().isAfter(alarmTime);
+        return isDue(TimeUtils.now());
     }
 
-    public void setMessage(String message) {
+    // Проверки с явным моментом времени: один снимок часов на весь проход
+    public boolean isDue(LocalDateTime now) {
+        return isActive && compareAlarmTime(now) < 0;
+    }
+
+    public synchronized void setMessage(String message) {
         if (message == null || message.trim().isEmpty()) {
             throw new IllegalArgumentException("Message can not be empty");
         }
+        String oldMessage = this.message;
         this.message = message;
+        if (changeListener != null && !oldMessage.equals(message)) {
+            changeListener.onMessageChanged(this, oldMessage);
+        }
     }
 
-    public void setAlarmTime(LocalDateTime alarmTime) {
+    public synchronized void setAlarmTime(LocalDateTime alarmTime) {
         if (alarmTime == null) {
             throw new IllegalArgumentException("Alarm time can not be null");
         }
-        this.alarmTime = alarmTime;
+        changeTime(alarmTime);
     }
 
-    public void setRecurring(boolean recurring) {
-        isRecurring = recurring;
+    // Включение повтора сохраняет уже заданное правило, а без него включает ежедневный
+    public synchronized void setRecurring(boolean recurring) {
+        changeState(isActive, recurring ? (recurrence != null ? recurrence : RecurrenceRule.DAILY) : null);
     }
 
-    public void activate() {
-        this.isActive = true;
+    public synchronized void setRecurrence(RecurrenceRule recurrence) {
+        changeState(isActive, recurrence);
     }
 
-    public void deactivate() {
-        this.isActive = false;
+    public synchronized void setChangeListener(AlarmChangeListener changeListener) {
+        this.changeListener = changeListener;
     }
 
-    public void toggle() {
-        this.isActive = !this.isActive;
+    public AlarmChangeListener getChangeListener() {
+        return changeListener;
+    }
+
+    public synchronized void activate() {
+        changeState(true, recurrence);
+    }
+
+    public synchronized void deactivate() {
+        changeState(false, recurrence);
+    }
+
+    public synchronized void toggle() {
+        changeState(!isActive, recurrence);
+    }
+
+    private void changeTime(LocalDateTime newAlarmTime) {
+        long oldSeconds = this.alarmSeconds;
+        int oldNanos = this.alarmNanos;
+        timeVersion++;
+        this.alarmSeconds = TimeUtils.toEpochSecond(newAlarmTime);
+        this.alarmNanos = TimeUtils.toNanoOfSecond(newAlarmTime);
+        timeVersion++;
+        if (changeListener != null && (oldSeconds != alarmSeconds || oldNanos != alarmNanos)) {
+            changeListener.onTimeChanged(this, TimeUtils.fromEpochSecond(oldSeconds, oldNanos));
+        }
+    }
+
+    // вызывается под монитором будильника
+    private void setLastTriggered(LocalDateTime lastTriggered) {
+        timeVersion++;
+        this.triggeredSeconds = TimeUtils.toEpochSecond(lastTriggered);
+        this.triggeredNanos = TimeUtils.toNanoOfSecond(lastTriggered);
+        timeVersion++;
+    }
+
+    private void changeState(boolean active, RecurrenceRule newRecurrence) {
+        boolean wasActive = this.isActive;
+        RecurrenceRule oldRecurrence = this.recurrence;
+        this.isActive = active;
+        this.recurrence = newRecurrence;
+        if (changeListener != null && (wasActive != active || !Objects.equals(oldRecurrence, newRecurrence))) {
+            changeListener.onStateChanged(this, wasActive, oldRecurrence != null);
+        }
     }
 
     public boolean shouldTrigger() {
-        return isActive &&
-                LocalDateTime.now().isAfter(alarmTime) &&
-                (lastTriggered == null || !lastTriggered.toLocalDate().equals(LocalDateTime.now().toLocalDate()));
+        return shouldTrigger(TimeUtils.now());
     }
 
-    public void trigger() {
-        if (shouldTrigger()) {
-            this.lastTriggered = LocalDateTime.now();
+    public boolean shouldTrigger(LocalDateTime now) {
+        // срабатывание после текущего времени будильника еще не было; повторяющийся
+        // будильник после срабатывания переносится вперед, поэтому звонит и чаще раза в день
+        if (!isActive) {
+            return false;
+        }
+        long nowSeconds = TimeUtils.toEpochSecond(now);
+        int nowNanos = now.getNano();
+        while (true) {
+            int version = timeVersion;
+            long seconds = alarmSeconds;
+            int nanos = alarmNanos;
+            long lastSeconds = triggeredSeconds;
+            int lastNanos = triggeredNanos;
+            if (isStable(version)) {
+                return TimeUtils.compare(nowSeconds, nowNanos, seconds, nanos) > 0
+                        && (lastSeconds == TimeUtils.NO_TIME
+                        || TimeUtils.compare(lastSeconds, lastNanos, seconds, nanos) < 0);
+            }
+            Thread.onSpinWait();
+        }
+    }
 
-            if (isRecurring) {
-                // для повторяющихся будильников - устанавливаем на завтра
-                this.alarmTime = this.alarmTime.plusDays(1);
+    public synchronized void trigger() {
+        trigger(TimeUtils.now());
+    }
+
+    public synchronized void trigger(LocalDateTime now) {
+        if (shouldTrigger(now)) {
+            setLastTriggered(now);
+
+            RecurrenceRule rule = recurrence;
+            if (rule != null) {
+                // для повторяющихся - ближайшее срабатывание по правилу после текущего момента,
+                // пропущенные срабатывания не навёрстываются
+                changeTime(rule.next(getAlarmTime(), now));
             } else {
                 // для одноразовых
-                this.isActive = false;
+                deactivate();
             }
         }
     }
 
-    public void snooze(int minutes) {
+    // Срабатывание на текущее время уже было (например, у восстановленного будильника):
+    // повторяющийся переносится на следующее время по своему правилу, как после trigger
+    public synchronized void advance(LocalDateTime now) {
+        RecurrenceRule rule = recurrence;
+        if (rule != null && isDue(now) && !shouldTrigger(now)) {
+            changeTime(rule.next(getAlarmTime(), now));
+        }
+    }
+
+    public synchronized void snooze(int minutes) {
+        snooze(minutes, TimeUtils.now());
+    }
+
+    public synchronized void snooze(int minutes, LocalDateTime now) {
         if (isActive) {
-            this.alarmTime = LocalDateTime.now().plusMinutes(minutes);
-            this.lastTriggered = null; // Сбрасываем триггер для нового времени
+            setLastTriggered(null); // Сбрасываем триггер для нового времени
+            changeTime(now.plusMinutes(minutes));
         }
     }
 
     public boolean isExpired() {
-        return !isActive && !isRecurring && alarmTime.isBefore(LocalDateTime.now());
+        return isExpired(TimeUtils.now());
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return !isActive && recurrence == null && compareAlarmTime(now) < 0;
     }
 
     public boolean isToday() {
-        return alarmTime.toLocalDate().equals(LocalDateTime.now().toLocalDate());
+        return isToday(TimeUtils.now());
+    }
+
+    public boolean isToday(LocalDateTime now) {
+        return TimeUtils.isToday(getAlarmTime(), now);
     }
 
     public boolean isTomorrow() {
-        return alarmTime.toLocalDate().equals(LocalDateTime.now().plusDays(1).toLocalDate());
+        return isTomorrow(TimeUtils.now());
+    }
+
+    public boolean isTomorrow(LocalDateTime now) {
+        return TimeUtils.isTomorrow(getAlarmTime(), now);
     }
 
     public String getFormattedAlarmTime() {
-        return TimeUtils.formatDateTime(alarmTime);
+        return TimeUtils.formatDateTime(getAlarmTime());
     }
 
     public String getFormattedCreatedAt() {
-        return TimeUtils.formatDateTime(createdAt);
+        return TimeUtils.formatDateTime(getCreatedAt());
     }
 
     public String getFormattedLastTriggered() {
+        LocalDateTime lastTriggered = getLastTriggered();
         return lastTriggered != null ? TimeUtils.formatDateTime(lastTriggered) : "Never";
     }
 
     public String getTimeUntilAlarm() {
-        return TimeUtils.getTimeUntilAlarm(alarmTime);
+        return getTimeUntilAlarm(TimeUtils.now());
+    }
+
+    public String getTimeUntilAlarm(LocalDateTime now) {
+        return TimeUtils.getTimeUntilAlarm(getAlarmTime(), now);
     }
 
     public String getStatusWithIcon() {
+        return getStatusWithIcon(TimeUtils.now());
+    }
+
+    public String getStatusWithIcon(LocalDateTime now) {
         if (!isActive) return "Turned off";
-        if (shouldTrigger()) return "Passed";
+        if (shouldTrigger(now)) return "Passed";
         return "Turned on";
     }
 
     public String getRecurringWithIcon() {
-        return isRecurring ? "Repeated" : "Not repeated";
+        RecurrenceRule rule = recurrence;
+        if (rule == null) {
+            return "Not repeated";
+        }
+        return RecurrenceRule.DAILY.equals(rule) ? "Repeated" : "Repeated: " + rule.getDescription();
     }
 
     @Override
@@ -178,44 +372,61 @@ public class Alarm {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Alarm alarm = (Alarm) o;
-        return Objects.equals(id, alarm.id);
+        return id == alarm.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Long.hashCode(id);
     }
 
     @Override
     public String toString() { // для вывода
-        StringBuilder sb = new StringBuilder();
+        return appendTo(new StringBuilder(256), TimeUtils.now()).toString();
+    }
+
+    // Как и у Task: общий код для toString и потокового вывода списков
+    public StringBuilder appendTo(StringBuilder sb, LocalDateTime now) {
+        LocalDateTime time = getAlarmTime();
         sb.append("--- ALARM #").append(id).append(" ---\n");
         sb.append("| message: ").append(message).append("\n");
-        sb.append("| time: ").append(getFormattedAlarmTime()).append("\n");
-        sb.append("| status: ").append(getStatusWithIcon()).append("\n");
+        sb.append("| time: ");
+        TimeUtils.appendDateTime(sb, time);
+        sb.append("\n");
+        sb.append("| status: ").append(getStatusWithIcon(now)).append("\n");
         sb.append("| type: ").append(getRecurringWithIcon()).append("\n");
-        sb.append("| created at: ").append(getFormattedCreatedAt()).append("\n");
+        sb.append("| created at: ");
+        TimeUtils.appendDateTime(sb, getCreatedAt());
+        sb.append("\n");
 
-        if (isActive && !shouldTrigger()) {
-            sb.append(" due to: ").append(getTimeUntilAlarm()).append("\n");
+        if (isActive && !shouldTrigger(now)) {
+            sb.append(" due to: ").append(TimeUtils.getTimeUntilAlarm(time, now)).append("\n");
         }
 
+        LocalDateTime lastTriggered = getLastTriggered();
         if (lastTriggered != null) {
-            sb.append("| last signal: ").append(getFormattedLastTriggered()).append("\n");
+            sb.append("| last signal: ");
+            TimeUtils.appendDateTime(sb, lastTriggered);
+            sb.append("\n");
         }
 
         sb.append("---------------");
-        return sb.toString();
+        return sb;
     }
 
     public String toShortString() { // короткий вывод
-        String timeInfo = isToday() ? "Today " : isTomorrow() ? "Tomorrow " : "";
-        return String.format("#%d: %s %s(%s) [%s]",
-                id,
-                message,
-                timeInfo,
-                TimeUtils.formatTime(alarmTime),
-                getStatusWithIcon()
-        );
+        return appendShortTo(new StringBuilder(64), TimeUtils.now()).toString();
+    }
+
+    public StringBuilder appendShortTo(StringBuilder sb, LocalDateTime now) {
+        sb.append('#').append(id).append(": ").append(message).append(' ');
+        if (isToday(now)) {
+            sb.append("Today ");
+        } else if (isTomorrow(now)) {
+            sb.append("Tomorrow ");
+        }
+        sb.append('(');
+        TimeUtils.appendTime(sb, getAlarmTime());
+        return sb.append(") [").append(getStatusWithIcon(now)).append(']');
     }
 }
@@ -0,0 +1,22 @@
+package com.alraxas.taskmanager.models;
+
+import java.time.LocalDateTime;
+
+public interface AlarmChangeListener {
+
+    // Вызываются менеджером при добавлении и удалении будильника
+    default void onAlarmAdded(Alarm alarm) {
+    }
+
+    default void onAlarmRemoved(Alarm alarm) {
+    }
+
+    default void onStateChanged(Alarm alarm, boolean wasActive, boolean wasRecurring) {
+    }
+
+    default void onTimeChanged(Alarm alarm, LocalDateTime oldAlarmTime) {
+    }
+
+    default void onMessageChanged(Alarm alarm, String oldMessage) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.alraxas.taskmanager.models;
+
+import com.alraxas.taskmanager.enums.RecurrenceType;
+
+import java.time.*;
+import java.time.format.TextStyle;
+import java.util.*;
+
+// Правило повторения будильника. Правило неизменяемо, поэтому один экземпляр можно
+// разделять между любым числом будильников. Следующее срабатывание вычисляется из правила
+// по требованию, заранее ничего не раскрывается: для интервалов - делением, для дней недели -
+// не больше семи шагов, для месяцев - один шаг, даты-исключения ищутся двоичным поиском
+public final class RecurrenceRule {
+    private static final long[] NO_EXCEPTIONS = new long[0];
+    private static final int WORKDAYS = 0b0011111; // понедельник - пятница
+
+    public static final RecurrenceRule DAILY = new RecurrenceRule(RecurrenceType.DAILY, 1, 0, 0, NO_EXCEPTIONS);
+
+    private final RecurrenceType type;
+    private final int interval; // DAILY - дни, HOURLY - часы
+    private final int weekdays; // WEEKLY - битовая маска, бит 0 - понедельник
+    private final int dayOfMonth; // MONTHLY - 1..31, в коротких месяцах берется последний день
+    private final long[] exceptions; // отсортированные epochDay дат, в которые будильник молчит
+
+    private RecurrenceRule(RecurrenceType type, int interval, int weekdays, int dayOfMonth, long[] exceptions) {
+        this.type = type;
+        this.interval = interval;
+        this.weekdays = weekdays;
+        this.dayOfMonth = dayOfMonth;
+        this.exceptions = exceptions;
+    }
+
+    public static RecurrenceRule daily() {
+        return DAILY;
+    }
+
+    public static RecurrenceRule everyDays(int days) {
+        if (days <= 0 || days > 3650) {
+            throw new IllegalArgumentException("Day interval has to be between 1 and 3650");
+        }
+        return days == 1 ? DAILY : new RecurrenceRule(RecurrenceType.DAILY, days, 0, 0, NO_EXCEPTIONS);
+    }
+
+    public static RecurrenceRule everyHours(int hours) {
+        if (hours <= 0 || hours > 24 * 3650) {
+            throw new IllegalArgumentException("Hour interval has to be between 1 and 87600");
+        }
+        return new RecurrenceRule(RecurrenceType.HOURLY, hours, 0, 0, NO_EXCEPTIONS);
+    }
+
+    public static RecurrenceRule weekly(DayOfWeek... days) {
+        if (days.length == 0) {
+            throw new IllegalArgumentException("At least one day of week is required");
+        }
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << day.ordinal();
+        }
+        return new RecurrenceRule(RecurrenceType.WEEKLY, 1, mask, 0, NO_EXCEPTIONS);
+    }
+
+    public static RecurrenceRule weekdays() {
+        return weekly(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+    }
+
+    public static RecurrenceRule monthly(int dayOfMonth) {
+        if (dayOfMonth < 1 || dayOfMonth > 31) {
+            throw new IllegalArgumentException("Day of month has to be between 1 and 31");
+        }
+        return new RecurrenceRule(RecurrenceType.MONTHLY, 1, 0, dayOfMonth, NO_EXCEPTIONS);
+    }
+
+    // Новое правило с добавленными датами-исключениями
+    public RecurrenceRule except(LocalDate... dates) {
+        long[] merged = Arrays.copyOf(exceptions, exceptions.length + dates.length);
+        for (int i = 0; i < dates.length; i++) {
+            if (dates[i] == null) {
+                throw new IllegalArgumentException("Exception date can not be null");
+            }
+            merged[exceptions.length + i] = dates[i].toEpochDay();
+        }
+        merged = Arrays.stream(merged).sorted().distinct().toArray();
+        return new RecurrenceRule(type, interval, weekdays, dayOfMonth, merged);
+    }
+
+    // Ближайшее срабатывание строго позже after и позже опорного срабатывания anchor,
+    // от которого берутся время суток и фаза интервала
+    public LocalDateTime next(LocalDateTime anchor, LocalDateTime after) {
+        LocalDateTime candidate = nextOccurrence(anchor, after);
+        // каждый шаг перескакивает через дату-исключение целиком
+        while (isExcluded(candidate.toLocalDate())) {
+            candidate = nextOccurrence(anchor, candidate.toLocalDate().plusDays(1).atStartOfDay().minusNanos(1));
+        }
+        return candidate;
+    }
+
+    private LocalDateTime nextOccurrence(LocalDateTime anchor, LocalDateTime after) {
+        switch (type) {
+            case DAILY:
+                return stepAfter(anchor, after, Duration.ofDays(interval));
+            case HOURLY:
+                return stepAfter(anchor, after, Duration.ofHours(interval));
+            case WEEKLY: {
+                LocalDateTime base = after.isAfter(anchor) ? after : anchor;
+                LocalTime time = anchor.toLocalTime();
+                LocalDate date = base.toLocalDate();
+                if (!date.atTime(time).isAfter(base)) {
+                    date = date.plusDays(1);
+                }
+                while ((weekdays & 1 << date.getDayOfWeek().ordinal()) == 0) {
+                    date = date.plusDays(1);
+                }
+                return date.atTime(time);
+            }
+            case MONTHLY: {
+                LocalDateTime base = after.isAfter(anchor) ? after : anchor;
+                LocalTime time = anchor.toLocalTime();
+                YearMonth month = YearMonth.from(base);
+                LocalDateTime candidate = atDayOfMonth(month, time);
+                return candidate.isAfter(base) ? candidate : atDayOfMonth(month.plusMonths(1), time);
+            }
+            default:
+                throw new IllegalStateException("Unknown recurrence type: " + type);
+        }
+    }
+
+    // Сколько целых периодов прошло от anchor до after, плюс один - без перебора пропущенных
+    private static LocalDateTime stepAfter(LocalDateTime anchor, LocalDateTime after, Duration period) {
+        long steps = 1;
+        if (after.isAfter(anchor)) {
+            steps = Duration.between(anchor, after).dividedBy(period) + 1;
+        }
+        return anchor.plus(period.multipliedBy(steps));
+    }
+
+    private LocalDateTime atDayOfMonth(YearMonth month, LocalTime time) {
+        return month.atDay(Math.min(dayOfMonth, month.lengthOfMonth())).atTime(time);
+    }
+
+    public boolean isExcluded(LocalDate date) {
+        return exceptions.length > 0 && Arrays.binarySearch(exceptions, date.toEpochDay()) >= 0;
+    }
+
+    public RecurrenceType getType() {
+        return type;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public Set<DayOfWeek> getWeekdays() {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((weekdays & 1 << day.ordinal()) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    public int getDayOfMonth() {
+        return dayOfMonth;
+    }
+
+    public List<LocalDate> getExceptions() {
+        List<LocalDate> dates = new ArrayList<>(exceptions.length);
+        for (long day : exceptions) {
+            dates.add(LocalDate.ofEpochDay(day));
+        }
+        return dates;
+    }
+
+    public String getDescription() {
+        StringBuilder sb = new StringBuilder();
+        switch (type) {
+            case DAILY:
+                sb.append(interval == 1 ? "Daily" : "Every " + interval + " days");
+                break;
+            case HOURLY:
+                sb.append(interval == 1 ? "Hourly" : "Every " + interval + " hours");
+                break;
+            case WEEKLY:
+                if (weekdays == WORKDAYS) {
+                    sb.append("Weekdays");
+                } else {
+                    sb.append("Weekly on ");
+                    String separator = "";
+                    for (DayOfWeek day : getWeekdays()) {
+                        sb.append(separator).append(day.getDisplayName(TextStyle.SHORT, Locale.ENGLISH));
+                        separator = ", ";
+                    }
+                }
+                break;
+            case MONTHLY:
+                sb.append("Monthly on day ").append(dayOfMonth);
+                break;
+        }
+        if (exceptions.length > 0) {
+            sb.append(" except ").append(exceptions.length).append(exceptions.length == 1 ? " date" : " dates");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecurrenceRule rule = (RecurrenceRule) o;
+        return type == rule.type && interval == rule.interval && weekdays == rule.weekdays
+                && dayOfMonth == rule.dayOfMonth && Arrays.equals(exceptions, rule.exceptions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, interval, weekdays, dayOfMonth, Arrays.hashCode(exceptions));
+    }
+
+    @Override
+    public String toString() {
+        return getDescription();
+    }
+}
@@ -2,39 +2,56 @@ package com.alraxas.taskmanager.models;
 
 import com.alraxas.taskmanager.enums.TaskPriority;
 import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.utils.TimeUtils;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 public class Task {
-    private Long id;
-    private String title;
-    private String description;
-    private TaskPriority taskPriority;
-    private TaskStatus taskStatus;
-    private LocalDateTime dueDate;
-    private LocalDateTime completedAt;
-    private LocalDateTime createdAt;
+    // изменяемые поля volatile, а изменения синхронизированы на задаче,
+    // так что задачу можно читать и менять из разных потоков.
+    // id и время хранятся примитивами (секунды от эпохи и наносекунды, см. TimeUtils.toEpochSecond),
+    // LocalDateTime создается только в геттерах. Пара секунды/наносекунды меняется под монитором
+    // между двумя увеличениями timeVersion, а читается без блокировки: чтение повторяется,
+    // пока версия нечетная или изменилась за время чтения
+    private final long id;
+    private volatile String title;
+    private volatile String description;
+    private volatile TaskPriority taskPriority;
+    private volatile TaskStatus taskStatus;
+    private volatile long dueSeconds;
+    private volatile int dueNanos;
+    private volatile long completedSeconds;
+    private volatile int completedNanos;
+    private long createdSeconds;
+    private int createdNanos;
+    private volatile int timeVersion;
+    private volatile TaskChangeListener changeListener;
 
     public Task(Long id, String title, String description) {
-        this.id = id;
-        this.title = title;
-        this.description = description;
-        this.taskPriority = TaskPriority.MEDIUM;
-        this.taskStatus = TaskStatus.PENDING;
-        this.dueDate = null;
-        this.completedAt = null;
-        this.createdAt = LocalDateTime.now();
+        this(id, title, description, TaskPriority.MEDIUM);
     }
 
     public Task(Long id, String title, String description, TaskPriority taskPriority) {
-        this(id, title, description);
-        this.taskPriority = taskPriority;
+        this(id, title, description, taskPriority, null);
     }
 
     public Task(Long id, String title, String description, TaskPriority taskPriority, LocalDateTime dueDate) {
-        this(id, title, description, taskPriority);
-        this.dueDate = dueDate;
+        this(id, title, description, taskPriority, dueDate, TimeUtils.now());
+    }
+
+    // createdAt - момент создания по часам владельца (менеджер передает свой now())
+    public Task(Long id, String title, String description, TaskPriority taskPriority,
+                LocalDateTime dueDate, LocalDateTime createdAt) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.taskPriority = taskPriority;
+        this.taskStatus = TaskStatus.PENDING;
+        this.dueSeconds = TimeUtils.toEpochSecond(dueDate);
+        this.dueNanos = TimeUtils.toNanoOfSecond(dueDate);
+        this.completedSeconds = TimeUtils.NO_TIME;
+        this.createdSeconds = TimeUtils.toEpochSecond(createdAt);
+        this.createdNanos = TimeUtils.toNanoOfSecond(createdAt);
     }
 
     public Task(Long id, String title, String description, TaskPriority taskPriority,
@@ -43,6 +60,15 @@ public class Task {
         this.taskStatus = taskStatus;
     }
 
+    // Восстановление задачи с полным состоянием, например из журнала
+    public Task(Long id, String title, String description, TaskPriority taskPriority,
+                LocalDateTime dueDate, TaskStatus taskStatus, LocalDateTime createdAt, LocalDateTime completedAt) {
+        this(id, title, description, taskPriority, dueDate, createdAt);
+        this.taskStatus = taskStatus;
+        this.completedSeconds = TimeUtils.toEpochSecond(completedAt);
+        this.completedNanos = TimeUtils.toNanoOfSecond(completedAt);
+    }
+
     public Long getId() {
         return id;
     }
@@ -64,41 +90,130 @@ public class Task {
     }
 
     public LocalDateTime getDueDate() {
-        return dueDate;
+        while (true) {
+            int version = timeVersion;
+            long seconds = dueSeconds;
+            int nanos = dueNanos;
+            if (isStable(version)) {
+                return TimeUtils.fromEpochSecond(seconds, nanos);
+            }
+            Thread.onSpinWait();
+        }
     }
 
     public LocalDateTime getCompletedAt() {
-        return completedAt;
+        while (true) {
+            int version = timeVersion;
+            long seconds = completedSeconds;
+            int nanos = completedNanos;
+            if (isStable(version)) {
+                return TimeUtils.fromEpochSecond(seconds, nanos);
+            }
+            Thread.onSpinWait();
+        }
     }
 
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return TimeUtils.fromEpochSecond(createdSeconds, createdNanos);
+    }
+
+    public boolean hasDueDate() {
+        return dueSeconds != TimeUtils.NO_TIME;
+    }
+
+    // Срок в [from, to) без создания LocalDateTime; у задачи без срока - false
+    public boolean isDueBetween(long fromSecond, int fromNano, long toSecond, int toNano) {
+        while (true) {
+            int version = timeVersion;
+            long seconds = dueSeconds;
+            int nanos = dueNanos;
+            if (isStable(version)) {
+                return seconds != TimeUtils.NO_TIME
+                        && TimeUtils.compare(seconds, nanos, fromSecond, fromNano) >= 0
+                        && TimeUtils.compare(seconds, nanos, toSecond, toNano) < 0;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public boolean isCreatedBetween(long fromSecond, int fromNano, long toSecond, int toNano) {
+        return TimeUtils.compare(createdSeconds, createdNanos, fromSecond, fromNano) >= 0
+                && TimeUtils.compare(createdSeconds, createdNanos, toSecond, toNano) < 0;
+    }
+
+    // четная версия, не изменившаяся за время чтения, - пара прочитана целиком
+    private boolean isStable(int version) {
+        return (version & 1) == 0 && version == timeVersion;
     }
 
-    public void setTitle(String title) {
+    public synchronized void setTitle(String title) {
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Title can not be empty");
         }
+        String oldTitle = this.title;
         this.title = title.trim();
+        if (changeListener != null && !this.title.equals(oldTitle)) {
+            changeListener.onTitleChanged(this, oldTitle);
+        }
     }
 
-    public void setDescription(String description) {
+    public synchronized void setDescription(String description) {
+        String oldDescription = this.description;
         this.description = description.trim();
+        if (changeListener != null && !this.description.equals(oldDescription)) {
+            changeListener.onDescriptionChanged(this, oldDescription);
+        }
     }
 
-    public void setTaskPriority(TaskPriority taskPriority) {
+    public synchronized void setTaskPriority(TaskPriority taskPriority) {
         if (taskPriority == null) {
             throw new IllegalArgumentException("Priority can not be null");
         }
+        TaskPriority oldPriority = this.taskPriority;
         this.taskPriority = taskPriority;
+        if (changeListener != null && oldPriority != taskPriority) {
+            changeListener.onPriorityChanged(this, oldPriority);
+        }
     }
 
-    public void setTaskStatus(TaskStatus taskStatus) {
-        this.taskStatus = taskStatus;
+    public synchronized void setTaskStatus(TaskStatus taskStatus) {
+        if (taskStatus == null) {
+            throw new IllegalArgumentException("Status can not be null");
+        }
+        changeStatus(taskStatus);
+    }
+
+    public synchronized void setChangeListener(TaskChangeListener changeListener) {
+        this.changeListener = changeListener;
     }
 
-    public void setDueDate(LocalDateTime dueDate) {
-        this.dueDate = dueDate;
+    public TaskChangeListener getChangeListener() {
+        return changeListener;
+    }
+
+    // true, если статус действительно изменился
+    private boolean changeStatus(TaskStatus newStatus) {
+        TaskStatus oldStatus = this.taskStatus;
+        this.taskStatus = newStatus;
+        if (oldStatus == newStatus) {
+            return false;
+        }
+        if (changeListener != null) {
+            changeListener.onStatusChanged(this, oldStatus);
+        }
+        return true;
+    }
+
+    public synchronized void setDueDate(LocalDateTime dueDate) {
+        long oldSeconds = this.dueSeconds;
+        int oldNanos = this.dueNanos;
+        timeVersion++;
+        this.dueSeconds = TimeUtils.toEpochSecond(dueDate);
+        this.dueNanos = TimeUtils.toNanoOfSecond(dueDate);
+        timeVersion++;
+        if (changeListener != null && (oldSeconds != dueSeconds || oldNanos != dueNanos)) {
+            changeListener.onDueDateChanged(this, TimeUtils.fromEpochSecond(oldSeconds, oldNanos));
+        }
     }
 
     public boolean isCompleted() {
@@ -106,77 +221,113 @@ public class Task {
     }
 
     public boolean isOverdue() {
-        return dueDate != null && LocalDateTime.now().isAfter(dueDate) && !isCompleted();
+        return isOverdue(TimeUtils.now());
+    }
+
+    // Проверка относительно переданного момента, чтобы проход по задачам читал часы один раз
+    public boolean isOverdue(LocalDateTime now) {
+        return !isCompleted() && isDueBetween(Long.MIN_VALUE, 0, TimeUtils.toEpochSecond(now), now.getNano());
     }
 
-    public void markInProgress() {
+    public synchronized void markInProgress() {
         if (taskStatus != TaskStatus.COMPLETED && taskStatus != TaskStatus.CANCELLED) {
-            this.taskStatus = TaskStatus.IN_PROGRESS;
+            changeStatus(TaskStatus.IN_PROGRESS);
         }
     }
 
-    public void markCompleted() {
-        if (taskStatus != TaskStatus.CANCELLED) {
-            this.taskStatus = TaskStatus.COMPLETED;
-            this.completedAt = LocalDateTime.now();
+    // markCompleted и markCancelled возвращают true, только если статус изменился:
+    // отмененную задачу нельзя завершить, завершенную - отменить
+    public synchronized boolean markCompleted() {
+        return markCompleted(TimeUtils.now());
+    }
+
+    public synchronized boolean markCompleted(LocalDateTime now) {
+        if (taskStatus == TaskStatus.CANCELLED || taskStatus == TaskStatus.COMPLETED) {
+            return false;
         }
+        timeVersion++;
+        this.completedSeconds = TimeUtils.toEpochSecond(now);
+        this.completedNanos = TimeUtils.toNanoOfSecond(now);
+        timeVersion++;
+        return changeStatus(TaskStatus.COMPLETED);
     }
 
-    public void markCancelled() {
-        if (taskStatus != TaskStatus.COMPLETED) {
-            this.taskStatus = TaskStatus.CANCELLED;
+    public synchronized boolean markCancelled() {
+        if (taskStatus == TaskStatus.COMPLETED) {
+            return false;
         }
+        return changeStatus(TaskStatus.CANCELLED);
     }
 
-    public void resetStatus() {
+    public synchronized void resetStatus() {
         if (taskStatus != TaskStatus.COMPLETED) {
-            this.taskStatus = TaskStatus.PENDING;
+            changeStatus(TaskStatus.PENDING);
         }
     }
 
     public String getFormattedCreatedAt() {
-        return formatDateTime(createdAt);
+        return TimeUtils.formatDateTime(getCreatedAt());
     }
 
     public String getFormattedDueDate() {
-        return dueDate != null ? formatDateTime(dueDate) : "Not set";
+        LocalDateTime dueDate = getDueDate();
+        return dueDate != null ? TimeUtils.formatDateTime(dueDate) : "Not set";
     }
 
     public String getFormattedCompletedAt() {
-        return completedAt != null ? formatDateTime(createdAt) : "Not finished";
-    }
-
-    private String formatDateTime(LocalDateTime dateTime) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-        return dateTime.format(formatter);
+        LocalDateTime completedAt = getCompletedAt();
+        return completedAt != null ? TimeUtils.formatDateTime(completedAt) : "Not finished";
     }
 
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder();
+        return appendTo(new StringBuilder(256), TimeUtils.now()).toString();
+    }
+
+    // Полное описание в переданный буфер: toString и потоковый вывод списков
+    // используют один код, а вывод списков переиспользует один буфер на все задачи
+    public StringBuilder appendTo(StringBuilder sb, LocalDateTime now) {
         sb.append("--- TASK #").append(id).append(" ---\n");
         sb.append("| title: ").append(title).append("\n");
         sb.append("| description: ").append(description.isEmpty() ? "none" : description).append("\n");
-        sb.append("| status: ").append(taskStatus.toString()).append("\n");
-        sb.append("| priority: ").append(taskPriority.toString()).append("\n");
-        sb.append("| created at: ").append(getFormattedCreatedAt()).append("\n");
-        sb.append(" due to: ").append(getFormattedDueDate());
+        sb.append("| status: ").append(taskStatus).append("\n");
+        sb.append("| priority: ").append(taskPriority).append("\n");
+        sb.append("| created at: ");
+        TimeUtils.appendDateTime(sb, getCreatedAt());
+        sb.append("\n");
+        sb.append(" due to: ");
+        LocalDateTime dueDate = getDueDate();
+        if (dueDate != null) {
+            TimeUtils.appendDateTime(sb, dueDate);
+        } else {
+            sb.append("Not set");
+        }
 
-        if (isOverdue()) {
+        if (isOverdue(now)) {
             sb.append(" Overdue!");
         }
 
         if (isCompleted()) {
-            sb.append("\n Completed: ").append(getFormattedCompletedAt());
+            sb.append("\n Completed: ");
+            LocalDateTime completedAt = getCompletedAt();
+            if (completedAt != null) {
+                TimeUtils.appendDateTime(sb, completedAt);
+            } else {
+                sb.append("Not finished");
+            }
         }
 
         sb.append("\n---------------");
 
-        return sb.toString();
+        return sb;
     }
 
     public String toShortString() {
-        return String.format("#%d: %s [%s]", id, title, taskStatus.toString());
+        return appendShortTo(new StringBuilder(64)).toString();
+    }
+
+    public StringBuilder appendShortTo(StringBuilder sb) {
+        return sb.append('#').append(id).append(": ").append(title).append(" [").append(taskStatus).append(']');
     }
 
     @Override
@@ -184,11 +335,11 @@ public class Task {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Task task = (Task) o;
-        return id.equals(task.id);
+        return id == task.id;
     }
 
     @Override
     public int hashCode() {
-        return id.hashCode();
+        return Long.hashCode(id);
     }
 }
@@ -0,0 +1,37 @@
+package com.alraxas.taskmanager.models;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+
+import java.time.LocalDateTime;
+
+public interface TaskChangeListener {
+
+    // Вызываются менеджером при добавлении и удалении задачи
+    default void onTaskAdded(Task task) {
+    }
+
+    default void onTaskRemoved(Task task) {
+    }
+
+    // Задача загруженного снимка раскодирована и попала в память менеджера. Это не новое
+    // добавление: для индексов оно выглядит так же, а журналу записывать нечего
+    default void onTaskRestored(Task task) {
+        onTaskAdded(task);
+    }
+
+    default void onStatusChanged(Task task, TaskStatus oldStatus) {
+    }
+
+    default void onPriorityChanged(Task task, TaskPriority oldPriority) {
+    }
+
+    default void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+    }
+
+    default void onTitleChanged(Task task, String oldTitle) {
+    }
+
+    default void onDescriptionChanged(Task task, String oldDescription) {
+    }
+}
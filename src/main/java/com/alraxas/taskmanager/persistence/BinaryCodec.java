@@ -0,0 +1,176 @@
+package com.alraxas.taskmanager.persistence;
+
+import com.alraxas.taskmanager.enums.RecurrenceType;
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.RecurrenceRule;
+import com.alraxas.taskmanager.models.Task;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+// Двоичное представление задач и будильников, общее для журнала и снимков
+public class BinaryCodec {
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final RecurrenceType[] RECURRENCE_TYPES = RecurrenceType.values();
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    public static void writeTask(DataOutput out, Task task) throws IOException {
+        out.writeLong(task.getId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        out.writeByte(task.getTaskPriority().ordinal());
+        out.writeByte(task.getTaskStatus().ordinal());
+        writeTime(out, task.getDueDate());
+        writeTime(out, task.getCreatedAt());
+        writeTime(out, task.getCompletedAt());
+    }
+
+    public static Task readTask(DataInput in) throws IOException {
+        long id = in.readLong();
+        String title = readString(in);
+        String description = readString(in);
+        TaskPriority priority = PRIORITIES[in.readByte()];
+        TaskStatus status = STATUSES[in.readByte()];
+        LocalDateTime dueDate = readTime(in);
+        LocalDateTime createdAt = readTime(in);
+        LocalDateTime completedAt = readTime(in);
+        return new Task(id, title, description, priority, dueDate, status, createdAt, completedAt);
+    }
+
+    public static void writeAlarm(DataOutput out, Alarm alarm) throws IOException {
+        out.writeLong(alarm.getId());
+        writeString(out, alarm.getMessage());
+        writeTime(out, alarm.getAlarmTime());
+        out.writeBoolean(alarm.isActive());
+        writeRecurrence(out, alarm.getRecurrence());
+        writeTime(out, alarm.getCreatedAt());
+        writeTime(out, alarm.getLastTriggered());
+    }
+
+    public static Alarm readAlarm(DataInput in) throws IOException {
+        long id = in.readLong();
+        String message = readString(in);
+        LocalDateTime alarmTime = readTime(in);
+        boolean active = in.readBoolean();
+        RecurrenceRule recurrence = readRecurrence(in);
+        LocalDateTime createdAt = readTime(in);
+        LocalDateTime lastTriggered = readTime(in);
+        return new Alarm(id, message, alarmTime, active, recurrence, createdAt, lastTriggered);
+    }
+
+    // Раньше здесь был флаг повтора: 0 - нет правила, 1 - ежедневное, поэтому старые
+    // файлы читаются как есть; 2 - правило целиком
+    public static void writeRecurrence(DataOutput out, RecurrenceRule rule) throws IOException {
+        if (rule == null) {
+            out.writeByte(0);
+            return;
+        }
+        if (RecurrenceRule.DAILY.equals(rule)) {
+            out.writeByte(1);
+            return;
+        }
+        out.writeByte(2);
+        out.writeByte(rule.getType().ordinal());
+        out.writeInt(rule.getInterval());
+        int weekdays = 0;
+        for (DayOfWeek day : rule.getWeekdays()) {
+            weekdays |= 1 << day.ordinal();
+        }
+        out.writeByte(weekdays);
+        out.writeByte(rule.getDayOfMonth());
+        List<LocalDate> exceptions = rule.getExceptions();
+        out.writeInt(exceptions.size());
+        for (LocalDate date : exceptions) {
+            out.writeLong(date.toEpochDay());
+        }
+    }
+
+    public static RecurrenceRule readRecurrence(DataInput in) throws IOException {
+        int kind = in.readByte();
+        if (kind == 0) {
+            return null;
+        }
+        if (kind == 1) {
+            return RecurrenceRule.DAILY;
+        }
+        RecurrenceType type = RECURRENCE_TYPES[in.readByte()];
+        int interval = in.readInt();
+        int weekdays = in.readByte();
+        int dayOfMonth = in.readByte();
+        RecurrenceRule rule;
+        switch (type) {
+            case DAILY:
+                rule = RecurrenceRule.everyDays(interval);
+                break;
+            case HOURLY:
+                rule = RecurrenceRule.everyHours(interval);
+                break;
+            case WEEKLY:
+                List<DayOfWeek> days = new ArrayList<>();
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    if ((weekdays & 1 << day.ordinal()) != 0) {
+                        days.add(day);
+                    }
+                }
+                rule = RecurrenceRule.weekly(days.toArray(new DayOfWeek[0]));
+                break;
+            default:
+                rule = RecurrenceRule.monthly(dayOfMonth);
+        }
+        LocalDate[] exceptions = new LocalDate[in.readInt()];
+        for (int i = 0; i < exceptions.length; i++) {
+            exceptions[i] = LocalDate.ofEpochDay(in.readLong());
+        }
+        return exceptions.length > 0 ? rule.except(exceptions) : rule;
+    }
+
+    // null кодируется длиной -1
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Время хранится как секунды эпохи (без часового пояса) и наносекунды
+    public static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+        if (time == null) {
+            out.writeLong(NO_TIME);
+            return;
+        }
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    public static LocalDateTime readTime(DataInput in) throws IOException {
+        long seconds = in.readLong();
+        if (seconds == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,459 @@
+package com.alraxas.taskmanager.persistence;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.managers.TaskManager;
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.AlarmChangeListener;
+import com.alraxas.taskmanager.models.Task;
+import com.alraxas.taskmanager.models.TaskChangeListener;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Журнал упреждающей записи: каждое добавление, изменение и удаление задачи или будильника
+// записывается как двоичная запись [длина][crc32][тип][данные]. Изменения пишутся полным
+// состоянием объекта, так что повтор журнала идемпотентен. Записи копятся в буфере, а
+// фоновый поток сбрасывает их на диск пачками с одним fsync на пачку (group commit).
+public class Journal implements TaskChangeListener, AlarmChangeListener, Closeable {
+    private static final byte TASK_PUT = 1;
+    private static final byte TASK_REMOVE = 2;
+    private static final byte ALARM_PUT = 3;
+    private static final byte ALARM_REMOVE = 4;
+    private static final int HEADER_SIZE = 8;
+    // больше не пишется ни одна запись; длина из заголовка сверх этого - мусор, а не запись
+    static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private final Path path;
+    private final Object channelLock = new Object();
+    private FileChannel channel;
+    private OutputStream channelOut;
+    private final boolean durableAppends;
+    private final Object lock = new Object();
+    private ByteArrayOutputStream pending;
+    private ByteArrayOutputStream spare;
+    private long appendedCount;
+    private long durableCount;
+    private IOException failure;
+    private boolean running;
+    private boolean closed; // под lock: после close записи не принимаются
+    private final Thread flusher;
+    private TaskManager taskManager;
+    private AlarmManager alarmManager;
+    private ScheduledExecutorService checkpointer;
+
+    private Journal(Path path, FileChannel channel, boolean durableAppends) {
+        this.path = path;
+        this.channel = channel;
+        this.channelOut = Channels.newOutputStream(channel);
+        this.durableAppends = durableAppends;
+        this.pending = new ByteArrayOutputStream(64 * 1024);
+        this.spare = new ByteArrayOutputStream(64 * 1024);
+        this.running = true;
+        this.flusher = new Thread(this::flushLoop, "JournalFlusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // Восстанавливает состояние менеджеров из журнала и подключает журнал к ним. Журнал
+    // применяется поверх уже загруженного снимка: записи идемпотентны, побеждает последняя.
+    // При durableAppends каждое изменение ждет fsync своей пачки, иначе запись асинхронная
+    // и долговечность гарантирует только sync().
+    public static Journal open(Path path, TaskManager taskManager, AlarmManager alarmManager,
+                               boolean durableAppends) throws IOException {
+        long validLength = Files.exists(path) ? replay(path, taskManager, alarmManager) : 0;
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // оборванная последней записью при сбое часть файла отбрасывается
+        channel.truncate(validLength);
+        channel.position(validLength);
+
+        Journal journal = new Journal(path, channel, durableAppends);
+        journal.attach(taskManager, alarmManager);
+        return journal;
+    }
+
+    private static long replay(Path path, TaskManager taskManager, AlarmManager alarmManager) throws IOException {
+        Map<Long, Task> tasks = new LinkedHashMap<>();
+        Map<Long, Alarm> alarms = new LinkedHashMap<>();
+        // удаленные id нужно убрать и из состояния, загруженного снимком
+        Set<Long> removedTasks = new HashSet<>();
+        Set<Long> removedAlarms = new HashSet<>();
+        long validLength = 0;
+        long fileLength = Files.size(path);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte[] payload = readRecord(in, fileLength - validLength - HEADER_SIZE);
+                if (payload == null) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                switch (record.readByte()) {
+                    case TASK_PUT -> {
+                        Task task = BinaryCodec.readTask(record);
+                        tasks.put(task.getId(), task);
+                        removedTasks.remove(task.getId());
+                    }
+                    case TASK_REMOVE -> {
+                        long id = record.readLong();
+                        tasks.remove(id);
+                        removedTasks.add(id);
+                    }
+                    case ALARM_PUT -> {
+                        Alarm alarm = BinaryCodec.readAlarm(record);
+                        alarms.put(alarm.getId(), alarm);
+                        removedAlarms.remove(alarm.getId());
+                    }
+                    case ALARM_REMOVE -> {
+                        long id = record.readLong();
+                        alarms.remove(id);
+                        removedAlarms.add(id);
+                    }
+                    default -> throw new IOException("Unknown journal record type");
+                }
+                validLength += HEADER_SIZE + payload.length;
+            }
+        }
+
+        taskManager.removeTasks(removedTasks);
+        taskManager.addTasks(tasks.values());
+        for (Long id : removedAlarms) {
+            if (alarmManager.getAlarmById(id) != null) {
+                alarmManager.removeAlarm(id);
+            }
+        }
+        alarmManager.addAlarms(alarms.values());
+        return validLength;
+    }
+
+    // null - конец журнала, в том числе оборванная или поврежденная запись;
+    // available - сколько байт файла осталось после заголовка записи
+    private static byte[] readRecord(DataInputStream in, long available) throws IOException {
+        try {
+            int length = in.readInt();
+            int crc = in.readInt();
+            // длину проверяем до выделения буфера: поврежденный заголовок не должен
+            // заставить выделить гигабайты под запись, которой в файле нет
+            if (length <= 0 || length > MAX_RECORD_SIZE || length > available) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 checksum = new CRC32();
+            checksum.update(payload);
+            return (int) checksum.getValue() == crc ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void attach(TaskManager taskManager, AlarmManager alarmManager) {
+        this.taskManager = taskManager;
+        this.alarmManager = alarmManager;
+        taskManager.addChangeListener(this);
+        alarmManager.addChangeListener(this);
+    }
+
+    @Override
+    public void onTaskAdded(Task task) {
+        appendTask(task);
+    }
+
+    // задача уже есть в снимке, на который опирается журнал
+    @Override
+    public void onTaskRestored(Task task) {
+    }
+
+    @Override
+    public void onTaskRemoved(Task task) {
+        appendRemoval(TASK_REMOVE, task.getId());
+    }
+
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        appendTask(task);
+    }
+
+    @Override
+    public void onPriorityChanged(Task task, TaskPriority oldPriority) {
+        appendTask(task);
+    }
+
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        appendTask(task);
+    }
+
+    @Override
+    public void onTitleChanged(Task task, String oldTitle) {
+        appendTask(task);
+    }
+
+    @Override
+    public void onDescriptionChanged(Task task, String oldDescription) {
+        appendTask(task);
+    }
+
+    @Override
+    public void onAlarmAdded(Alarm alarm) {
+        appendAlarm(alarm);
+    }
+
+    @Override
+    public void onAlarmRemoved(Alarm alarm) {
+        appendRemoval(ALARM_REMOVE, alarm.getId());
+    }
+
+    @Override
+    public void onStateChanged(Alarm alarm, boolean wasActive, boolean wasRecurring) {
+        appendAlarm(alarm);
+    }
+
+    @Override
+    public void onTimeChanged(Alarm alarm, LocalDateTime oldAlarmTime) {
+        appendAlarm(alarm);
+    }
+
+    @Override
+    public void onMessageChanged(Alarm alarm, String oldMessage) {
+        appendAlarm(alarm);
+    }
+
+    private void appendTask(Task task) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+        try {
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeByte(TASK_PUT);
+            BinaryCodec.writeTask(out, task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(payload);
+    }
+
+    private void appendAlarm(Alarm alarm) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(96);
+        try {
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeByte(ALARM_PUT);
+            BinaryCodec.writeAlarm(out, alarm);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(payload);
+    }
+
+    private void appendRemoval(byte type, long id) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(9);
+        try {
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeByte(type);
+            out.writeLong(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(payload);
+    }
+
+    private void append(ByteArrayOutputStream payload) {
+        CRC32 checksum = new CRC32();
+        byte[] bytes = payload.toByteArray();
+        checksum.update(bytes);
+        if (bytes.length > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Journal record is too large: " + bytes.length + " bytes");
+        }
+
+        long sequence;
+        synchronized (lock) {
+            if (failure != null) {
+                throw new UncheckedIOException("Journal is not writable", failure);
+            }
+            // после close поток сброса уже остановлен: запись никогда не попала бы на диск
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            writeInt(pending, bytes.length);
+            writeInt(pending, (int) checksum.getValue());
+            pending.writeBytes(bytes);
+            sequence = ++appendedCount;
+            lock.notifyAll();
+        }
+        if (durableAppends) {
+            awaitDurable(sequence);
+        }
+    }
+
+    // Ждет, пока все уже добавленные записи будут сброшены на диск
+    public void sync() {
+        long sequence;
+        synchronized (lock) {
+            sequence = appendedCount;
+        }
+        awaitDurable(sequence);
+    }
+
+    private void awaitDurable(long sequence) {
+        synchronized (lock) {
+            while (durableCount < sequence && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // запись еще не на диске: молча вернуться значило бы выдать её за сохраненную
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the journal to reach the disk", e);
+                }
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Journal is not writable", failure);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchEnd;
+            synchronized (lock) {
+                while (pending.size() == 0 && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                // пока пачка пишется на диск, новые записи копятся во втором буфере
+                batch = pending;
+                pending = spare;
+                batchEnd = appendedCount;
+            }
+
+            try {
+                synchronized (channelLock) {
+                    batch.writeTo(channelOut);
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            batch.reset();
+            synchronized (lock) {
+                spare = batch;
+                durableCount = batchEnd;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // Пишет снимок и отбрасывает из журнала все, что в него вошло. Записи, сброшенные
+    // до начала снимка, описывают изменения, которые снимок уже видит; остальные
+    // переносятся в новый файл журнала, который атомарно заменяет старый.
+    // Сбой между записью снимка и заменой журнала безопасен: повтор идемпотентен.
+    public void checkpoint(Path snapshotPath) throws IOException {
+        long mark;
+        synchronized (channelLock) {
+            mark = channel.size();
+        }
+        Snapshot.write(snapshotPath, taskManager, alarmManager);
+
+        synchronized (channelLock) {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel compacted = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long tail = channel.size() - mark;
+                long copied = 0;
+                while (copied < tail) {
+                    copied += channel.transferTo(mark + copied, tail - copied, compacted);
+                }
+                compacted.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            channelOut = Channels.newOutputStream(channel);
+        }
+    }
+
+    // Периодические контрольные точки в фоновом потоке до закрытия журнала
+    public synchronized void startCheckpoints(Path snapshotPath, Duration interval) {
+        if (checkpointer != null) {
+            return;
+        }
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "JournalCheckpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = interval.toMillis();
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint(snapshotPath);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (checkpointer != null) {
+                checkpointer.shutdownNow();
+                checkpointer = null;
+            }
+        }
+        if (taskManager != null) {
+            taskManager.removeChangeListener(this);
+            alarmManager.removeChangeListener(this);
+        }
+        synchronized (lock) {
+            running = false;
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (channelLock) {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
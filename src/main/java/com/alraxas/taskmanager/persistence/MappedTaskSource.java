@@ -0,0 +1,157 @@
+package com.alraxas.taskmanager.persistence;
+
+import com.alraxas.taskmanager.models.Task;
+import com.alraxas.taskmanager.stores.TaskSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Задачи снимка прямо в отображенном файле: таблица пар (id, смещение записи) по
+// возрастанию id и сами записи. Файл отображается кусками не больше regionSize, граница
+// куска записей всегда приходится на начало записи, поэтому снимок может быть больше 2 ГБ.
+// При загрузке таблица только просматривается, запись раскодируется при обращении к ней
+class MappedTaskSource implements TaskSource {
+    static final int ENTRY_SIZE = 16;
+
+    private final int count;
+    private final ByteBuffer[] index;
+    private final int entriesPerRegion;
+    private final ByteBuffer[] records;
+    private final long[] regionStarts; // смещение каждого куска записей в файле
+    private final int[] regionFirst; // номер первой записи в куске
+
+    private MappedTaskSource(int count, ByteBuffer[] index, int entriesPerRegion,
+                             ByteBuffer[] records, long[] regionStarts, int[] regionFirst) {
+        this.count = count;
+        this.index = index;
+        this.entriesPerRegion = entriesPerRegion;
+        this.records = records;
+        this.regionStarts = regionStarts;
+        this.regionFirst = regionFirst;
+    }
+
+    static MappedTaskSource map(FileChannel channel, int count, long recordsStart, long recordsEnd,
+                                long indexStart, int regionSize) throws IOException {
+        int entriesPerRegion = Math.max(regionSize / ENTRY_SIZE, 1);
+        int indexRegions = (int) ((count + (long) entriesPerRegion - 1) / entriesPerRegion);
+        ByteBuffer[] index = new ByteBuffer[indexRegions];
+        for (int r = 0; r < indexRegions; r++) {
+            long entries = Math.min(entriesPerRegion, count - (long) r * entriesPerRegion);
+            index[r] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    indexStart + (long) r * entriesPerRegion * ENTRY_SIZE, entries * ENTRY_SIZE);
+        }
+
+        List<Long> starts = new ArrayList<>();
+        List<Integer> firsts = new ArrayList<>();
+        List<ByteBuffer> regions = new ArrayList<>();
+        if (count > 0) {
+            int first = 0;
+            long regionStart = offset(index, entriesPerRegion, 0);
+            long previous = regionStart;
+            if (regionStart != recordsStart) {
+                throw new IOException("Snapshot index is corrupted");
+            }
+            for (int i = 1; i <= count; i++) {
+                // конец записи i - 1
+                long end = i < count ? offset(index, entriesPerRegion, i) : recordsEnd;
+                if (end <= previous || end > recordsEnd) {
+                    throw new IOException("Snapshot index is corrupted");
+                }
+                if (end - regionStart > regionSize && i - 1 > first) {
+                    regions.add(mapRecords(channel, regionStart, previous));
+                    starts.add(regionStart);
+                    firsts.add(first);
+                    first = i - 1;
+                    regionStart = previous;
+                }
+                previous = end;
+            }
+            regions.add(mapRecords(channel, regionStart, recordsEnd));
+            starts.add(regionStart);
+            firsts.add(first);
+        }
+
+        long[] regionStarts = new long[starts.size()];
+        int[] regionFirst = new int[firsts.size()];
+        for (int r = 0; r < regionStarts.length; r++) {
+            regionStarts[r] = starts.get(r);
+            regionFirst[r] = firsts.get(r);
+        }
+        return new MappedTaskSource(count, index, entriesPerRegion,
+                regions.toArray(new ByteBuffer[0]), regionStarts, regionFirst);
+    }
+
+    private static ByteBuffer mapRecords(FileChannel channel, long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot record is too large to map: " + (end - start) + " bytes");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    private static long offset(ByteBuffer[] index, int entriesPerRegion, int i) {
+        return index[i / entriesPerRegion].getLong((i % entriesPerRegion) * ENTRY_SIZE + 8);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public long idAt(int i) {
+        return index[i / entriesPerRegion].getLong((i % entriesPerRegion) * ENTRY_SIZE);
+    }
+
+    @Override
+    public int indexOf(long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = idAt(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Task read(int i) {
+        int region = regionOf(i);
+        // у каждого читателя своя позиция, сами отображенные куски общие
+        ByteBuffer view = records[region].duplicate();
+        view.position((int) (offset(index, entriesPerRegion, i) - regionStarts[region]));
+        Task task;
+        try {
+            task = BinaryCodec.readTask(new ByteBufferInput(view));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Snapshot record " + i + " is corrupted", e);
+        }
+        if (task.getId() != idAt(i)) {
+            throw new IllegalStateException("Snapshot record " + i + " does not match its index entry");
+        }
+        return task;
+    }
+
+    private int regionOf(int i) {
+        int low = 0;
+        int high = regionFirst.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (regionFirst[middle] <= i) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
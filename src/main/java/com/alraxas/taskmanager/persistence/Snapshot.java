@@ -0,0 +1,178 @@
+package com.alraxas.taskmanager.persistence;
+
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.managers.TaskManager;
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.Task;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Снимок состояния менеджеров: заголовок со счетчиками id, задачи, будильники, таблица
+// (id, смещение) для задач и завершающий блок со смещениями разделов. Пишется во временный
+// файл и атомарно заменяет прежний снимок. При загрузке задачи не раскодируются: файл
+// отображается в память, а менеджер задач читает записи по таблице при обращении к ним
+public class Snapshot {
+    private static final int MAGIC = 0x544D534E;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+    private static final int TRAILER_SIZE = 8 + 8 + 4;
+    private static final int REGION_SIZE = 1 << 30;
+
+    public static void write(Path path, TaskManager taskManager, AlarmManager alarmManager) throws IOException {
+        // таблица записей ищется двоичным поиском, поэтому задачи пишутся в порядке id
+        List<Task> tasks = taskManager.snapshot().values();
+        List<Alarm> alarms = alarmManager.getAllAlarms();
+        // счетчики читаются после списков, поэтому они больше любого id в снимке
+        long taskNextId = taskManager.getNextId();
+        long alarmNextId = alarmManager.getNextId();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(file, 64 * 1024));
+             DataOutputStream out = new DataOutputStream(counter)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(taskNextId);
+            out.writeLong(alarmNextId);
+            out.writeInt(tasks.size());
+            long[] ids = new long[tasks.size()];
+            long[] offsets = new long[tasks.size()];
+            int i = 0;
+            for (Task task : tasks) {
+                ids[i] = task.getId();
+                offsets[i] = counter.getCount();
+                i++;
+                // монитор задачи дает согласованный набор полей
+                synchronized (task) {
+                    BinaryCodec.writeTask(out, task);
+                }
+            }
+            long alarmsOffset = counter.getCount();
+            out.writeInt(alarms.size());
+            for (Alarm alarm : alarms) {
+                synchronized (alarm) {
+                    BinaryCodec.writeAlarm(out, alarm);
+                }
+            }
+            long indexOffset = counter.getCount();
+            for (i = 0; i < ids.length; i++) {
+                out.writeLong(ids[i]);
+                out.writeLong(offsets[i]);
+            }
+            out.writeLong(alarmsOffset);
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // false, если снимка еще нет. Будильники раскодируются сразу - их нужно поставить
+    // в планировщик, задачи и все их индексы восстанавливаются при первом обращении
+    public static boolean load(Path path, TaskManager taskManager, AlarmManager alarmManager) throws IOException {
+        return load(path, taskManager, alarmManager, REGION_SIZE);
+    }
+
+    static boolean load(Path path, TaskManager taskManager, AlarmManager alarmManager, int regionSize)
+            throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+
+        MappedTaskSource tasks;
+        List<Alarm> alarms;
+        long taskNextId;
+        long alarmNextId;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Snapshot is truncated: " + path);
+            }
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            taskNextId = header.getLong();
+            alarmNextId = header.getLong();
+            int taskCount = header.getInt();
+
+            ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long alarmsOffset = trailer.getLong();
+            long indexOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC || taskCount < 0 || alarmsOffset < HEADER_SIZE
+                    || indexOffset < alarmsOffset
+                    || indexOffset + (long) taskCount * MappedTaskSource.ENTRY_SIZE != size - TRAILER_SIZE) {
+                throw new IOException("Snapshot is corrupted: " + path);
+            }
+
+            tasks = MappedTaskSource.map(channel, taskCount, HEADER_SIZE, alarmsOffset, indexOffset, regionSize);
+            alarms = readAlarms(channel, alarmsOffset, path);
+        }
+
+        taskManager.restoreTasks(tasks, taskNextId);
+        alarmManager.restoreAlarms(alarms, alarmNextId);
+        return true;
+    }
+
+    // Поток не закрывается: он закрыл бы канал, который закрывает вызывающий
+    private static List<Alarm> readAlarms(FileChannel channel, long offset, Path path) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(offset)), 64 * 1024));
+        try {
+            int alarmCount = in.readInt();
+            List<Alarm> alarms = new ArrayList<>(Math.max(alarmCount, 0));
+            for (int i = 0; i < alarmCount; i++) {
+                alarms.add(BinaryCodec.readAlarm(in));
+            }
+            return alarms;
+        } catch (EOFException e) {
+            throw new IOException("Snapshot is truncated: " + path, e);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.flip();
+    }
+
+    // Смещения записей считаются по числу записанных байт; DataOutputStream.size
+    // для этого не годится - он перестает расти после 2 ГБ
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.alraxas.taskmanager.queries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+// Страница результата по возрастанию id и курсор для следующей страницы
+public class Page<T> {
+    private final List<T> items;
+    private final Long nextAfterId; // null - дальше элементов нет
+
+    public Page(List<T> items, Long nextAfterId) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextAfterId = nextAfterId;
+    }
+
+    // Берет из упорядоченного по id источника до limit подходящих элементов; один лишний
+    // элемент нужен только чтобы узнать, есть ли следующая страница
+    public static <T> Page<T> collect(Iterator<T> source, Predicate<? super T> filter, int limit,
+                                      ToLongFunction<? super T> id) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit has to be a positive number");
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, 1024));
+        while (source.hasNext()) {
+            T item = source.next();
+            if (filter != null && !filter.test(item)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new Page<>(items, id.applyAsLong(items.get(limit - 1)));
+            }
+            items.add(item);
+        }
+        return new Page<>(items, null);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+}
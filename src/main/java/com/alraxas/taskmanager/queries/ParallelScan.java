@@ -0,0 +1,94 @@
+package com.alraxas.taskmanager.queries;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Проход по упорядоченному источнику в пуле fork-join: сплитератор делится пополам,
+// пока куски больше chunkSize, каждый кусок сворачивается в свой аккумулятор, а результаты
+// сливаются слева направо, поэтому порядок элементов сохраняется
+public class ParallelScan {
+    private final ForkJoinPool pool;
+    private final int threshold; // меньшие источники проходятся в вызывающем потоке
+
+    public ParallelScan(ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool can not be null");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold has to be a positive number");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public boolean isParallel(int size) {
+        return size >= threshold;
+    }
+
+    public <T> List<T> filter(Collection<T> source, Predicate<? super T> condition) {
+        return aggregate(source, ArrayList::new, (matched, item) -> {
+            if (condition.test(item)) {
+                matched.add(item);
+            }
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    public <T, A> A aggregate(Collection<T> source, Supplier<A> identity,
+                              BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner) {
+        int size = source.size();
+        if (!isParallel(size)) {
+            A result = identity.get();
+            for (T item : source) {
+                accumulator.accept(result, item);
+            }
+            return result;
+        }
+        // несколько кусков на поток, чтобы неровные куски сплитератора выравнивались кражей задач
+        long chunkSize = Math.max(size / (pool.getParallelism() * 8L), 1024);
+        return pool.invoke(new Chunk<>(source.spliterator(), chunkSize, identity, accumulator, combiner));
+    }
+
+    // задача живет только внутри одного invoke и никогда не сериализуется
+    @SuppressWarnings("serial")
+    private static class Chunk<T, A> extends RecursiveTask<A> {
+        private final Spliterator<T> spliterator;
+        private final long chunkSize;
+        private final Supplier<A> identity;
+        private final BiConsumer<A, ? super T> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        private Chunk(Spliterator<T> spliterator, long chunkSize, Supplier<A> identity,
+                      BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner) {
+            this.spliterator = spliterator;
+            this.chunkSize = chunkSize;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (spliterator.estimateSize() > chunkSize) {
+                // trySplit отдает префикс, остаток остается в spliterator
+                Spliterator<T> prefix = spliterator.trySplit();
+                if (prefix != null) {
+                    Chunk<T, A> left = new Chunk<>(prefix, chunkSize, identity, accumulator, combiner);
+                    left.fork();
+                    A right = new Chunk<>(spliterator, chunkSize, identity, accumulator, combiner).compute();
+                    return combiner.apply(left.join(), right);
+                }
+            }
+            A result = identity.get();
+            spliterator.forEachRemaining(item -> accumulator.accept(result, item));
+            return result;
+        }
+    }
+}
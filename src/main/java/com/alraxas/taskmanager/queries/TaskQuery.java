@@ -0,0 +1,181 @@
+package com.alraxas.taskmanager.queries;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.indexes.TextIndex;
+import com.alraxas.taskmanager.models.Task;
+import com.alraxas.taskmanager.utils.TimeUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Составной запрос к задачам: все заданные условия объединяются через И.
+// Выполняет его TaskManager.query - он сам выбирает самый избирательный индекс,
+// а остальные условия проверяются только на его кандидатах
+public class TaskQuery {
+    private EnumSet<TaskStatus> statuses; // null - любой статус
+    private EnumSet<TaskPriority> priorities; // null - любой приоритет
+    private LocalDateTime dueFrom;
+    private LocalDateTime dueTo;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    // те же границы в секундах и наносекундах, чтобы не переводить их для каждой задачи
+    private long dueFromSeconds = Long.MIN_VALUE;
+    private int dueFromNanos;
+    private long dueToSeconds = Long.MAX_VALUE;
+    private int dueToNanos;
+    private long createdFromSeconds = Long.MIN_VALUE;
+    private int createdFromNanos;
+    private long createdToSeconds = Long.MAX_VALUE;
+    private int createdToNanos;
+    private String titleKeyword;
+    private String descriptionKeyword;
+    private boolean overdue;
+    private Comparator<Task> order; // null - по возрастанию id
+    private int limit = Integer.MAX_VALUE;
+
+    public static TaskQuery tasks() {
+        return new TaskQuery();
+    }
+
+    public TaskQuery status(TaskStatus... statuses) {
+        if (statuses.length == 0) {
+            throw new IllegalArgumentException("At least one status is required");
+        }
+        this.statuses = EnumSet.copyOf(Arrays.asList(statuses));
+        return this;
+    }
+
+    public TaskQuery priority(TaskPriority... priorities) {
+        if (priorities.length == 0) {
+            throw new IllegalArgumentException("At least one priority is required");
+        }
+        this.priorities = EnumSet.copyOf(Arrays.asList(priorities));
+        return this;
+    }
+
+    // Срок в [from, to); любая граница может быть null. Задачи без срока не подходят
+    public TaskQuery dueBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            throw new IllegalArgumentException("Due date range needs at least one bound");
+        }
+        this.dueFrom = from;
+        this.dueTo = to;
+        this.dueFromSeconds = from == null ? Long.MIN_VALUE : TimeUtils.toEpochSecond(from);
+        this.dueFromNanos = TimeUtils.toNanoOfSecond(from);
+        this.dueToSeconds = to == null ? Long.MAX_VALUE : TimeUtils.toEpochSecond(to);
+        this.dueToNanos = TimeUtils.toNanoOfSecond(to);
+        return this;
+    }
+
+    public TaskQuery createdBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            throw new IllegalArgumentException("Creation date range needs at least one bound");
+        }
+        this.createdFrom = from;
+        this.createdTo = to;
+        this.createdFromSeconds = from == null ? Long.MIN_VALUE : TimeUtils.toEpochSecond(from);
+        this.createdFromNanos = TimeUtils.toNanoOfSecond(from);
+        this.createdToSeconds = to == null ? Long.MAX_VALUE : TimeUtils.toEpochSecond(to);
+        this.createdToNanos = TimeUtils.toNanoOfSecond(to);
+        return this;
+    }
+
+    public TaskQuery titleContains(String keyword) {
+        this.titleKeyword = requireKeyword(keyword);
+        return this;
+    }
+
+    public TaskQuery descriptionContains(String keyword) {
+        this.descriptionKeyword = requireKeyword(keyword);
+        return this;
+    }
+
+    // Просрочена на момент выполнения запроса (по часам менеджера)
+    public TaskQuery overdue() {
+        this.overdue = true;
+        return this;
+    }
+
+    public TaskQuery orderBy(Comparator<Task> order) {
+        this.order = Objects.requireNonNull(order);
+        return this;
+    }
+
+    public TaskQuery limit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Query limit has to be a positive number");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    private static String requireKeyword(String keyword) {
+        if (keyword == null || keyword.isEmpty()) {
+            throw new IllegalArgumentException("Keyword can not be empty");
+        }
+        return keyword;
+    }
+
+    // Проверка всех условий; вызывается для кандидатов, которых вернул выбранный индекс
+    public boolean matches(Task task, LocalDateTime now) {
+        if (statuses != null && !statuses.contains(task.getTaskStatus())) {
+            return false;
+        }
+        if (priorities != null && !priorities.contains(task.getTaskPriority())) {
+            return false;
+        }
+        if ((dueFrom != null || dueTo != null)
+                && !task.isDueBetween(dueFromSeconds, dueFromNanos, dueToSeconds, dueToNanos)) {
+            return false;
+        }
+        if ((createdFrom != null || createdTo != null)
+                && !task.isCreatedBetween(createdFromSeconds, createdFromNanos, createdToSeconds, createdToNanos)) {
+            return false;
+        }
+        if (overdue && !task.isOverdue(now)) {
+            return false;
+        }
+        if (titleKeyword != null && !TextIndex.containsIgnoreCase(task.getTitle(), titleKeyword)) {
+            return false;
+        }
+        return descriptionKeyword == null
+                || TextIndex.containsIgnoreCase(task.getDescription(), descriptionKeyword);
+    }
+
+    public Set<TaskStatus> getStatuses() {
+        return statuses;
+    }
+
+    public Set<TaskPriority> getPriorities() {
+        return priorities;
+    }
+
+    public LocalDateTime getDueFrom() {
+        return dueFrom;
+    }
+
+    public LocalDateTime getDueTo() {
+        return dueTo;
+    }
+
+    public String getTitleKeyword() {
+        return titleKeyword;
+    }
+
+    public String getDescriptionKeyword() {
+        return descriptionKeyword;
+    }
+
+    public boolean isOverdue() {
+        return overdue;
+    }
+
+    public Comparator<Task> getOrder() {
+        return order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,206 @@
+package com.alraxas.taskmanager.renderers;
+
+import com.alraxas.taskmanager.enums.ListingFormat;
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.Task;
+import com.alraxas.taskmanager.utils.TimeUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Потоковый вывод больших списков задач и будильников. Все элементы идут в один
+// буферизованный Writer через переиспользуемый буфер строки, даты форматируются
+// кэшированными форматтерами прямо в буфер, а часы читаются один раз на список:
+// это часы владельца списка (менеджера) или, если они не переданы, общие часы TimeUtils.
+// Ошибки ввода-вывода пробрасываются как UncheckedIOException.
+public class ListingRenderer implements Flushable, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final ListingFormat format;
+    private final Clock clock;
+    private final StringBuilder buffer;
+    private char[] chars;
+
+    public ListingRenderer(OutputStream out, ListingFormat format) {
+        this(out, format, TimeUtils.getClock());
+    }
+
+    public ListingRenderer(OutputStream out, ListingFormat format, Clock clock) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8), format, clock);
+    }
+
+    public ListingRenderer(Writer out, ListingFormat format) {
+        this(out, format, TimeUtils.getClock());
+    }
+
+    // "Просрочено" и "до будильника" считаются по clock, например по часам менеджера
+    public ListingRenderer(Writer out, ListingFormat format, Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock can not be null");
+        }
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+        this.format = format;
+        this.clock = clock;
+        this.buffer = new StringBuilder(512);
+        this.chars = new char[512];
+    }
+
+    public void writeTasks(Iterable<Task> tasks) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int number = 0;
+        for (Task task : tasks) {
+            appendTask(task, ++number, now);
+            emit();
+        }
+    }
+
+    public void writeAlarms(Iterable<Alarm> alarms) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int number = 0;
+        for (Alarm alarm : alarms) {
+            appendAlarm(alarm, ++number, now);
+            emit();
+        }
+    }
+
+    // Смешанный список: задачи и будильники в выбранном формате, прочее через toString
+    public void writeItems(Iterable<?> items) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int number = 0;
+        for (Object item : items) {
+            number++;
+            if (item instanceof Task task) {
+                appendTask(task, number, now);
+            } else if (item instanceof Alarm alarm) {
+                appendAlarm(alarm, number, now);
+            } else {
+                appendNumber(number);
+                buffer.append(item);
+            }
+            emit();
+        }
+    }
+
+    private void appendTask(Task task, int number, LocalDateTime now) {
+        switch (format) {
+            case PLAIN -> {
+                appendNumber(number);
+                task.appendTo(buffer, now);
+            }
+            case COMPACT -> task.appendShortTo(buffer);
+            case JSON -> {
+                buffer.append("{\"id\":").append(task.getId());
+                appendField("title", task.getTitle());
+                appendField("description", task.getDescription());
+                buffer.append(",\"status\":\"").append(task.getTaskStatus().name()).append('"');
+                buffer.append(",\"priority\":\"").append(task.getTaskPriority().name()).append('"');
+                appendField("dueDate", task.getDueDate());
+                appendField("createdAt", task.getCreatedAt());
+                appendField("completedAt", task.getCompletedAt());
+                buffer.append(",\"overdue\":").append(task.isOverdue(now)).append('}');
+            }
+        }
+    }
+
+    private void appendAlarm(Alarm alarm, int number, LocalDateTime now) {
+        switch (format) {
+            case PLAIN -> {
+                appendNumber(number);
+                alarm.appendTo(buffer, now);
+            }
+            case COMPACT -> alarm.appendShortTo(buffer, now);
+            case JSON -> {
+                buffer.append("{\"id\":").append(alarm.getId());
+                appendField("message", alarm.getMessage());
+                appendField("alarmTime", alarm.getAlarmTime());
+                buffer.append(",\"active\":").append(alarm.isActive());
+                buffer.append(",\"recurring\":").append(alarm.isRecurring());
+                appendField("createdAt", alarm.getCreatedAt());
+                appendField("lastTriggered", alarm.getLastTriggered());
+                buffer.append('}');
+            }
+        }
+    }
+
+    private void appendNumber(int number) {
+        buffer.append(number).append(". ");
+    }
+
+    private void appendField(String name, LocalDateTime value) {
+        buffer.append(",\"").append(name).append("\":");
+        if (value == null) {
+            buffer.append("null");
+        } else {
+            buffer.append('"');
+            ISO.formatTo(value, buffer);
+            buffer.append('"');
+        }
+    }
+
+    private void appendField(String name, String value) {
+        buffer.append(",\"").append(name).append("\":");
+        if (value == null) {
+            buffer.append("null");
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        buffer.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        buffer.append(c);
+                    }
+                }
+            }
+        }
+        buffer.append('"');
+    }
+
+    // Строка уходит в Writer через переиспользуемый массив символов, без промежуточной String
+    private void emit() {
+        buffer.append(LINE_SEPARATOR);
+        int length = buffer.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        buffer.getChars(0, length, chars, 0);
+        buffer.setLength(0);
+        try {
+            out.write(chars, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
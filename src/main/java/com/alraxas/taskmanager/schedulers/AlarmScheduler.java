@@ -0,0 +1,232 @@
+package com.alraxas.taskmanager.schedulers;
+
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.utils.TimeUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class AlarmScheduler {
+    private static final Comparator<Entry> BY_FIRE_TIME =
+            Comparator.comparing((Entry entry) -> entry.fireAt).thenComparing(entry -> entry.alarm.getId());
+
+    private final String name;
+    private final Supplier<LocalDateTime> clock;
+    private final Consumer<Alarm> onDue;
+    private final BiConsumer<Alarm, RuntimeException> onFailure;
+    private final NavigableSet<Entry> queue; // ближайший срок первым
+    private final Map<Long, Entry> entries; // id -> запись в очереди
+    private final ReentrantLock lock;
+    private final Condition queueChanged;
+    private Thread worker;
+    private volatile boolean running;
+    // задержка срабатывания - от срока до передачи будильника в onDue;
+    // пишет только поток планировщика, поэтому хватает volatile
+    private volatile long firedCount;
+    private volatile long totalLagNanos;
+    private volatile long maxLagNanos;
+
+    public AlarmScheduler(String name, Consumer<Alarm> onDue) {
+        this(name, TimeUtils::now, onDue);
+    }
+
+    // clock - источник текущего времени владельца (его подменяемые часы)
+    public AlarmScheduler(String name, Supplier<LocalDateTime> clock, Consumer<Alarm> onDue) {
+        this(name, clock, onDue, (alarm, e) ->
+                Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e));
+    }
+
+    // onFailure получает исключение из onDue; поток планировщика после него продолжает работу
+    public AlarmScheduler(String name, Supplier<LocalDateTime> clock, Consumer<Alarm> onDue,
+                          BiConsumer<Alarm, RuntimeException> onFailure) {
+        this.name = name;
+        this.clock = clock;
+        this.onDue = onDue;
+        this.onFailure = onFailure;
+        this.queue = new TreeSet<>(BY_FIRE_TIME);
+        this.entries = new HashMap<>();
+        this.lock = new ReentrantLock();
+        this.queueChanged = lock.newCondition();
+    }
+
+    // Планирует будильник на его время срабатывания; неактивные снимаются с очереди
+    public void schedule(Alarm alarm) {
+        if (alarm.isActive()) {
+            scheduleAt(alarm, alarm.getAlarmTime());
+        } else {
+            cancel(alarm);
+        }
+    }
+
+    public void scheduleAt(Alarm alarm, LocalDateTime fireAt) {
+        lock.lock();
+        try {
+            Entry previous = entries.remove(alarm.getId());
+            if (previous != null) {
+                queue.remove(previous);
+            }
+            Entry entry = new Entry(alarm, fireAt);
+            entries.put(alarm.getId(), entry);
+            queue.add(entry);
+            if (queue.first() == entry) {
+                queueChanged.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel(Alarm alarm) {
+        lock.lock();
+        try {
+            Entry entry = entries.remove(alarm.getId());
+            if (entry != null) {
+                queue.remove(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            queue.clear();
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Будит поток, чтобы он заново рассчитал ожидание, например после смены часов
+    public void wakeUp() {
+        lock.lock();
+        try {
+            queueChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            List<Entry> due;
+            try {
+                due = awaitDue();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (Entry entry : due) {
+                // задержка меряется до передачи, а учитывается после: кто видит счетчик,
+                // видит и все, что сделал onDue
+                long lagNanos = TimeUtils.nanosBetween(entry.fireAt, clock.get());
+                try {
+                    onDue.accept(entry.alarm);
+                } catch (RuntimeException e) {
+                    // сбой одного будильника не должен останавливать весь шард
+                    onFailure.accept(entry.alarm, e);
+                } finally {
+                    recordLag(lagNanos);
+                }
+            }
+        }
+    }
+
+    private void recordLag(long lagNanos) {
+        long lag = Math.max(lagNanos, 0);
+        firedCount++;
+        totalLagNanos += lag;
+        if (lag > maxLagNanos) {
+            maxLagNanos = lag;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getFiredCount() {
+        return firedCount;
+    }
+
+    public long getMeanLagNanos() {
+        long fired = firedCount;
+        return fired == 0 ? 0 : totalLagNanos / fired;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    // Спит до ближайшего срока (или до изменения головы очереди) и забирает все наступившие
+    private List<Entry> awaitDue() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (queue.isEmpty()) {
+                    queueChanged.await();
+                    continue;
+                }
+                LocalDateTime now = clock.get();
+                if (!now.isAfter(queue.first().fireAt)) {
+                    long waitNanos = TimeUtils.nanosBetween(now, queue.first().fireAt);
+                    queueChanged.awaitNanos(Math.max(waitNanos, TimeUnit.MICROSECONDS.toNanos(1)));
+                    continue;
+                }
+
+                List<Entry> due = new ArrayList<>();
+                while (!queue.isEmpty() && now.isAfter(queue.first().fireAt)) {
+                    Entry entry = queue.pollFirst();
+                    entries.remove(entry.alarm.getId());
+                    due.add(entry);
+                }
+                return due;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Entry {
+        private final Alarm alarm;
+        private final LocalDateTime fireAt;
+
+        private Entry(Alarm alarm, LocalDateTime fireAt) {
+            this.alarm = alarm;
+            this.fireAt = fireAt;
+        }
+    }
+}
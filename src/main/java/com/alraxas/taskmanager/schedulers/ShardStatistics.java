@@ -0,0 +1,44 @@
+package com.alraxas.taskmanager.schedulers;
+
+// Снимок состояния одного шарда планировщика
+public class ShardStatistics {
+    private final String name;
+    private final int scheduled;
+    private final long fired;
+    private final long meanLagNanos;
+    private final long maxLagNanos;
+
+    public ShardStatistics(String name, int scheduled, long fired, long meanLagNanos, long maxLagNanos) {
+        this.name = name;
+        this.scheduled = scheduled;
+        this.fired = fired;
+        this.meanLagNanos = meanLagNanos;
+        this.maxLagNanos = maxLagNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getScheduled() {
+        return scheduled;
+    }
+
+    public long getFired() {
+        return fired;
+    }
+
+    public long getMeanLagNanos() {
+        return meanLagNanos;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": scheduled " + scheduled + ", fired " + fired
+                + ", mean lag " + meanLagNanos / 1_000 + " us, max lag " + maxLagNanos / 1_000 + " us";
+    }
+}
@@ -0,0 +1,90 @@
+package com.alraxas.taskmanager.schedulers;
+
+import com.alraxas.taskmanager.models.Alarm;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Будильники делятся по id между независимыми планировщиками: у каждого шарда своя очередь,
+// своя блокировка и свой поток, поэтому всплеск срабатываний в начале часа разбирается
+// всеми шардами одновременно. Будильник всегда попадает в один и тот же шард
+public class ShardedAlarmScheduler {
+    private final AlarmScheduler[] shards;
+
+    public ShardedAlarmScheduler(String name, int shardCount, Supplier<LocalDateTime> clock, Consumer<Alarm> onDue,
+                                 BiConsumer<Alarm, RuntimeException> onFailure) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count has to be a positive number");
+        }
+        this.shards = new AlarmScheduler[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new AlarmScheduler(name + "-" + i, clock, onDue, onFailure);
+        }
+    }
+
+    // id выдаются подряд, поэтому остаток от деления раскладывает их по шардам равномерно
+    private AlarmScheduler shardFor(Alarm alarm) {
+        return shards[(int) Math.floorMod(alarm.getId(), (long) shards.length)];
+    }
+
+    public void schedule(Alarm alarm) {
+        shardFor(alarm).schedule(alarm);
+    }
+
+    public void scheduleAt(Alarm alarm, LocalDateTime fireAt) {
+        shardFor(alarm).scheduleAt(alarm, fireAt);
+    }
+
+    public void cancel(Alarm alarm) {
+        shardFor(alarm).cancel(alarm);
+    }
+
+    public void clear() {
+        for (AlarmScheduler shard : shards) {
+            shard.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (AlarmScheduler shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public void wakeUp() {
+        for (AlarmScheduler shard : shards) {
+            shard.wakeUp();
+        }
+    }
+
+    public void start() {
+        for (AlarmScheduler shard : shards) {
+            shard.start();
+        }
+    }
+
+    public void stop() {
+        for (AlarmScheduler shard : shards) {
+            shard.stop();
+        }
+    }
+
+    public List<ShardStatistics> getStatistics() {
+        List<ShardStatistics> statistics = new ArrayList<>(shards.length);
+        for (AlarmScheduler shard : shards) {
+            statistics.add(new ShardStatistics(shard.getName(), shard.size(), shard.getFiredCount(),
+                    shard.getMeanLagNanos(), shard.getMaxLagNanos()));
+        }
+        return statistics;
+    }
+}
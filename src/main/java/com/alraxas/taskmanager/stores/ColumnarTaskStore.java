@@ -0,0 +1,375 @@
+package com.alraxas.taskmanager.stores;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.models.Task;
+import com.alraxas.taskmanager.models.TaskChangeListener;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Колоночная копия задач вне кучи: id, статус, приоритет и метки времени лежат в
+// примитивных колонках (direct-буферах), строки - в отдельной области байтов.
+// Проходы читают колонки подряд и не трогают объекты Task, объекты создаются
+// только для результатов. Наполняется как слушатель изменений задач менеджера.
+public class ColumnarTaskStore implements TaskChangeListener {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final long NO_STRING = -1;
+
+    private static final int ID = 0;
+    private static final int STATUS = 1;
+    private static final int PRIORITY = 2;
+    private static final int DUE_SECONDS = 3;
+    private static final int DUE_NANOS = 4;
+    private static final int CREATED_SECONDS = 5;
+    private static final int CREATED_NANOS = 6;
+    private static final int COMPLETED_SECONDS = 7;
+    private static final int COMPLETED_NANOS = 8;
+    private static final int TITLE = 9;
+    private static final int DESCRIPTION = 10;
+    // ширина значения каждой колонки в байтах
+    private static final int[] WIDTHS = {8, 1, 1, 8, 4, 8, 4, 8, 4, 8, 8};
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> rows; // id -> номер строки
+    private final ByteBuffer[] columns;
+    private int capacity;
+    private int size;
+    // строки в UTF-8; ссылка на строку в колонке - смещение << 32 | длина
+    private ByteBuffer arena;
+    private int arenaUsed;
+    private int arenaWasted;
+
+    public ColumnarTaskStore() {
+        this(1024);
+    }
+
+    public ColumnarTaskStore(int initialCapacity) {
+        this.rows = new HashMap<>();
+        this.capacity = Math.max(initialCapacity, 16);
+        this.columns = new ByteBuffer[WIDTHS.length];
+        for (int column = 0; column < WIDTHS.length; column++) {
+            columns[column] = ByteBuffer.allocateDirect(capacity * WIDTHS[column]);
+        }
+        this.arena = ByteBuffer.allocateDirect(capacity * 64);
+    }
+
+    @Override
+    public void onTaskAdded(Task task) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(task.getId());
+            if (row == null) {
+                ensureCapacity();
+                row = size++;
+                rows.put(task.getId(), row);
+                columns[TITLE].putLong(row * 8, NO_STRING);
+                columns[DESCRIPTION].putLong(row * 8, NO_STRING);
+            } else {
+                freeString(row, TITLE);
+                freeString(row, DESCRIPTION);
+            }
+            columns[ID].putLong(row * 8, task.getId());
+            columns[STATUS].put(row, (byte) task.getTaskStatus().ordinal());
+            columns[PRIORITY].put(row, (byte) task.getTaskPriority().ordinal());
+            putTime(row, DUE_SECONDS, DUE_NANOS, task.getDueDate());
+            putTime(row, CREATED_SECONDS, CREATED_NANOS, task.getCreatedAt());
+            putTime(row, COMPLETED_SECONDS, COMPLETED_NANOS, task.getCompletedAt());
+            putString(row, TITLE, task.getTitle());
+            putString(row, DESCRIPTION, task.getDescription());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onTaskRemoved(Task task) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(task.getId());
+            if (row == null) {
+                return;
+            }
+            freeString(row, TITLE);
+            freeString(row, DESCRIPTION);
+            // дыра закрывается последней строкой, колонки остаются плотными
+            int last = --size;
+            if (row != last) {
+                for (int column = 0; column < WIDTHS.length; column++) {
+                    int width = WIDTHS[column];
+                    columns[column].put(row * width, columns[column], last * width, width);
+                }
+                rows.put(columns[ID].getLong(row * 8), row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onStatusChanged(Task task, TaskStatus oldStatus) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(task.getId());
+            if (row != null) {
+                columns[STATUS].put(row, (byte) task.getTaskStatus().ordinal());
+                putTime(row, COMPLETED_SECONDS, COMPLETED_NANOS, task.getCompletedAt());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onPriorityChanged(Task task, TaskPriority oldPriority) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(task.getId());
+            if (row != null) {
+                columns[PRIORITY].put(row, (byte) task.getTaskPriority().ordinal());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDueDateChanged(Task task, LocalDateTime oldDueDate) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(task.getId());
+            if (row != null) {
+                putTime(row, DUE_SECONDS, DUE_NANOS, task.getDueDate());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onTitleChanged(Task task, String oldTitle) {
+        replaceString(task, TITLE, task.getTitle());
+    }
+
+    @Override
+    public void onDescriptionChanged(Task task, String oldDescription) {
+        replaceString(task, DESCRIPTION, task.getDescription());
+    }
+
+    private void replaceString(Task task, int column, String value) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(task.getId());
+            if (row != null) {
+                freeString(row, column);
+                putString(row, column, value);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === ПРОХОДЫ ПО КОЛОНКАМ ===
+    // Возвращают id по возрастанию
+
+    public long[] idsWithStatus(TaskStatus status) {
+        byte ordinal = (byte) status.ordinal();
+        lock.readLock().lock();
+        try {
+            ByteBuffer statuses = columns[STATUS];
+            long[] result = new long[16];
+            int found = 0;
+            for (int row = 0; row < size; row++) {
+                if (statuses.get(row) == ordinal) {
+                    if (found == result.length) {
+                        result = Arrays.copyOf(result, found * 2);
+                    }
+                    result[found++] = columns[ID].getLong(row * 8);
+                }
+            }
+            return sorted(result, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Незавершенные задачи со сроком раньше now, как в Task.isOverdue
+    public long[] overdueIds(LocalDateTime now) {
+        long nowSeconds = now.toEpochSecond(ZoneOffset.UTC);
+        int nowNanos = now.getNano();
+        lock.readLock().lock();
+        try {
+            long[] result = new long[16];
+            int found = 0;
+            for (int row = 0; row < size; row++) {
+                if (isOverdue(row, nowSeconds, nowNanos)) {
+                    if (found == result.length) {
+                        result = Arrays.copyOf(result, found * 2);
+                    }
+                    result[found++] = columns[ID].getLong(row * 8);
+                }
+            }
+            return sorted(result, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countOverdue(LocalDateTime now) {
+        long nowSeconds = now.toEpochSecond(ZoneOffset.UTC);
+        int nowNanos = now.getNano();
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                if (isOverdue(row, nowSeconds, nowNanos)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isOverdue(int row, long nowSeconds, int nowNanos) {
+        long dueSeconds = columns[DUE_SECONDS].getLong(row * 8);
+        if (dueSeconds == NO_TIME || columns[STATUS].get(row) == TaskStatus.COMPLETED.ordinal()) {
+            return false;
+        }
+        return dueSeconds < nowSeconds
+                || (dueSeconds == nowSeconds && columns[DUE_NANOS].getInt(row * 4) < nowNanos);
+    }
+
+    private static long[] sorted(long[] ids, int count) {
+        long[] result = Arrays.copyOf(ids, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Отдельная копия задачи из колонок, не связанная с менеджером; null, если id нет
+    public Task materialize(long id) {
+        lock.readLock().lock();
+        try {
+            Integer row = rows.get(id);
+            if (row == null) {
+                return null;
+            }
+            return new Task(id, getString(row, TITLE), getString(row, DESCRIPTION),
+                    PRIORITIES[columns[PRIORITY].get(row)],
+                    getTime(row, DUE_SECONDS, DUE_NANOS),
+                    STATUSES[columns[STATUS].get(row)],
+                    getTime(row, CREATED_SECONDS, CREATED_NANOS),
+                    getTime(row, COMPLETED_SECONDS, COMPLETED_NANOS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putTime(int row, int secondsColumn, int nanosColumn, LocalDateTime time) {
+        if (time == null) {
+            columns[secondsColumn].putLong(row * 8, NO_TIME);
+            columns[nanosColumn].putInt(row * 4, 0);
+        } else {
+            columns[secondsColumn].putLong(row * 8, time.toEpochSecond(ZoneOffset.UTC));
+            columns[nanosColumn].putInt(row * 4, time.getNano());
+        }
+    }
+
+    private LocalDateTime getTime(int row, int secondsColumn, int nanosColumn) {
+        long seconds = columns[secondsColumn].getLong(row * 8);
+        if (seconds == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(seconds, columns[nanosColumn].getInt(row * 4), ZoneOffset.UTC);
+    }
+
+    private void putString(int row, int column, String value) {
+        if (value == null) {
+            columns[column].putLong(row * 8, NO_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureArena(bytes.length);
+        arena.put(arenaUsed, bytes);
+        columns[column].putLong(row * 8, ((long) arenaUsed << 32) | bytes.length);
+        arenaUsed += bytes.length;
+    }
+
+    private String getString(int row, int column) {
+        long ref = columns[column].getLong(row * 8);
+        if (ref == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) ref];
+        arena.get((int) (ref >>> 32), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void freeString(int row, int column) {
+        long ref = columns[column].getLong(row * 8);
+        if (ref != NO_STRING) {
+            arenaWasted += (int) ref;
+            columns[column].putLong(row * 8, NO_STRING);
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size < capacity) {
+            return;
+        }
+        capacity *= 2;
+        for (int column = 0; column < WIDTHS.length; column++) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(capacity * WIDTHS[column]);
+            grown.put(0, columns[column], 0, size * WIDTHS[column]);
+            columns[column] = grown;
+        }
+    }
+
+    // Область строк только дописывается; когда места не хватает, а больше половины
+    // занято замененными строками, живые строки переписываются подряд
+    private void ensureArena(int length) {
+        if (arenaUsed + length <= arena.capacity()) {
+            return;
+        }
+        int live = arenaUsed - arenaWasted;
+        int newCapacity = arena.capacity();
+        if (arenaWasted * 2 < arenaUsed || live + length > newCapacity) {
+            newCapacity = Math.max(newCapacity * 2, live + length);
+        }
+        ByteBuffer compacted = ByteBuffer.allocateDirect(newCapacity);
+        int position = 0;
+        for (int row = 0; row < size; row++) {
+            for (int column = TITLE; column <= DESCRIPTION; column++) {
+                long ref = columns[column].getLong(row * 8);
+                if (ref == NO_STRING) {
+                    continue;
+                }
+                int stringLength = (int) ref;
+                compacted.put(position, arena, (int) (ref >>> 32), stringLength);
+                columns[column].putLong(row * 8, ((long) position << 32) | stringLength);
+                position += stringLength;
+            }
+        }
+        arena = compacted;
+        arenaUsed = position;
+        arenaWasted = 0;
+    }
+}
@@ -0,0 +1,390 @@
+package com.alraxas.taskmanager.stores;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+// Неизменяемое отображение id -> значение: префиксное дерево по 5 бит id на уровень с
+// битовой маской занятых ветвей. Изменение копирует только путь от корня до листа
+// (не больше 13 узлов по 32 ссылки), все остальные узлы разделяются с прежней версией,
+// поэтому каждая версия - готовый снимок, который можно читать без блокировок.
+// Обход идет по возрастанию id; размеры поддеревьев дают доступ по номеру
+// и деление на куски для параллельных проходов
+public final class PersistentIdMap<V> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MAX_SHIFT = 60; // 13 уровней покрывают 63 бита неотрицательного id
+    private static final Node EMPTY_NODE = new Node(0, new Object[0], 0);
+    private static final PersistentIdMap<?> EMPTY = new PersistentIdMap<>(EMPTY_NODE, 0, 0);
+
+    private final Node root;
+    private final int shift; // сдвиг id на уровне корня, на уровне листьев - 0
+    private final long version; // число изменений, через которые прошла эта версия
+    private ValuesView values;
+
+    private PersistentIdMap(Node root, int shift, long version) {
+        this.root = root;
+        this.shift = shift;
+        this.version = version;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIdMap<V> empty() {
+        return (PersistentIdMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return root.size;
+    }
+
+    public boolean isEmpty() {
+        return root.size == 0;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long id) {
+        if (!fits(id, shift)) {
+            return null;
+        }
+        Node node = root;
+        for (int level = shift; ; level -= BITS) {
+            int bit = bit(id, level);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[node.index(bit)];
+            if (level == 0) {
+                return (V) slot;
+            }
+            node = (Node) slot;
+        }
+    }
+
+    public boolean containsKey(long id) {
+        return get(id) != null;
+    }
+
+    public PersistentIdMap<V> with(long id, V value) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id can not be negative: " + id);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value can not be null");
+        }
+        Node top = root;
+        int topShift = shift;
+        // дерево растет вверх, пока id не поместится; пустой корень просто поднимается
+        while (!fits(id, topShift)) {
+            top = top.size == 0 ? EMPTY_NODE : new Node(1, new Object[]{top}, top.size);
+            topShift += BITS;
+        }
+        Node updated = assoc(top, topShift, id, value);
+        return updated == root ? this : new PersistentIdMap<>(updated, topShift, version + 1);
+    }
+
+    public PersistentIdMap<V> without(long id) {
+        return without(id, null);
+    }
+
+    // Удаляет id, только если под ним лежит именно expected (сравнение по ссылке);
+    // null в expected - удалить любое значение
+    public PersistentIdMap<V> without(long id, V expected) {
+        if (!fits(id, shift)) {
+            return this;
+        }
+        Node updated = dissoc(root, shift, id, expected);
+        return updated == root ? this : new PersistentIdMap<>(updated, shift, version + 1);
+    }
+
+    // Пустая версия, следующая за этой
+    public PersistentIdMap<V> cleared() {
+        return isEmpty() ? this : new PersistentIdMap<>(EMPTY_NODE, 0, version + 1);
+    }
+
+    // Значения по возрастанию id - неизменяемый список, создается один раз на версию
+    public List<V> values() {
+        ValuesView view = values;
+        if (view == null) {
+            view = new ValuesView();
+            values = view;
+        }
+        return view;
+    }
+
+    public Iterator<V> iterator(Long afterId) {
+        return new Cursor(afterId == null ? 0 : rank(afterId), root.size);
+    }
+
+    // Число id, не больших id
+    private int rank(long id) {
+        if (id < 0) {
+            return 0;
+        }
+        if (!fits(id, shift)) {
+            return root.size;
+        }
+        int rank = 0;
+        Node node = root;
+        for (int level = shift; ; level -= BITS) {
+            int bit = bit(id, level);
+            int index = node.index(bit);
+            if (level == 0) {
+                return rank + index + ((node.bitmap & bit) != 0 ? 1 : 0);
+            }
+            for (int i = 0; i < index; i++) {
+                rank += ((Node) node.slots[i]).size;
+            }
+            if ((node.bitmap & bit) == 0) {
+                return rank;
+            }
+            node = (Node) node.slots[index];
+        }
+    }
+
+    private static boolean fits(long id, int shift) {
+        return id >= 0 && (shift >= MAX_SHIFT || id >>> (shift + BITS) == 0);
+    }
+
+    private static int bit(long id, int shift) {
+        return 1 << ((int) (id >>> shift) & (WIDTH - 1));
+    }
+
+    private static Node assoc(Node node, int shift, long id, Object value) {
+        int bit = bit(id, shift);
+        int index = node.index(bit);
+        boolean present = (node.bitmap & bit) != 0;
+        if (shift == 0) {
+            if (present) {
+                return node.slots[index] == value ? node : node.replace(index, value, node.size);
+            }
+            return node.insert(bit, index, value, node.size + 1);
+        }
+        Node child = present ? (Node) node.slots[index] : EMPTY_NODE;
+        Node updated = assoc(child, shift - BITS, id, value);
+        if (updated == child) {
+            return node;
+        }
+        int size = node.size + updated.size - child.size;
+        return present ? node.replace(index, updated, size) : node.insert(bit, index, updated, size);
+    }
+
+    private static Node dissoc(Node node, int shift, long id, Object expected) {
+        int bit = bit(id, shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = node.index(bit);
+        if (shift == 0) {
+            if (expected != null && node.slots[index] != expected) {
+                return node;
+            }
+            return node.delete(bit, index, node.size - 1);
+        }
+        Node child = (Node) node.slots[index];
+        Node updated = dissoc(child, shift - BITS, id, expected);
+        if (updated == child) {
+            return node;
+        }
+        int size = node.size - child.size + updated.size;
+        return updated.size == 0 ? node.delete(bit, index, size) : node.replace(index, updated, size);
+    }
+
+    private static final class Node {
+        private final int bitmap; // занятые ветви из 32
+        private final Object[] slots; // по одному на бит маски: узлы, на уровне листьев - значения
+        private final int size; // значений в поддереве
+
+        private Node(int bitmap, Object[] slots, int size) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+            this.size = size;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node replace(int index, Object slot, int size) {
+            Object[] copy = slots.clone();
+            copy[index] = slot;
+            return new Node(bitmap, copy, size);
+        }
+
+        private Node insert(int bit, int index, Object slot, int size) {
+            Object[] copy = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            copy[index] = slot;
+            System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+            return new Node(bitmap | bit, copy, size);
+        }
+
+        private Node delete(int bit, int index, int size) {
+            if (size == 0) {
+                return EMPTY_NODE;
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            System.arraycopy(slots, index + 1, copy, index, slots.length - index - 1);
+            return new Node(bitmap & ~bit, copy, size);
+        }
+    }
+
+    // Обход с позиции по номеру: стек узлов от корня до листа и номер слота на каждом уровне
+    private final class Cursor implements Iterator<V> {
+        private final Node[] nodes;
+        private final int[] positions;
+        private int remaining;
+
+        private Cursor(int from, int to) {
+            int depth = shift / BITS + 1;
+            nodes = new Node[depth];
+            positions = new int[depth];
+            remaining = Math.max(to - from, 0);
+            if (remaining == 0) {
+                return;
+            }
+            Node node = root;
+            int index = from;
+            for (int level = 0; level < depth - 1; level++) {
+                nodes[level] = node;
+                int slot = 0;
+                Node child = (Node) node.slots[0];
+                while (index >= child.size) {
+                    index -= child.size;
+                    child = (Node) node.slots[++slot];
+                }
+                positions[level] = slot;
+                node = child;
+            }
+            nodes[depth - 1] = node;
+            positions[depth - 1] = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            int leaf = nodes.length - 1;
+            V value = (V) nodes[leaf].slots[positions[leaf]];
+            if (--remaining > 0) {
+                advance(leaf);
+            }
+            return value;
+        }
+
+        private void advance(int leaf) {
+            int level = leaf;
+            while (++positions[level] == nodes[level].slots.length) {
+                level--;
+            }
+            // спуск к самому левому листу следующей ветви
+            while (level < leaf) {
+                nodes[level + 1] = (Node) nodes[level].slots[positions[level]];
+                positions[++level] = 0;
+            }
+        }
+    }
+
+    // Кусок [index, end) для параллельных проходов: делится пополам по номерам,
+    // сам кусок обходится курсором без поиска каждого элемента от корня
+    private final class Chunk implements Spliterator<V> {
+        private int index;
+        private final int end;
+        private Cursor cursor;
+
+        private Chunk(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super V> action) {
+            if (index >= end) {
+                return false;
+            }
+            if (cursor == null) {
+                cursor = new Cursor(index, end);
+            }
+            index++;
+            action.accept(cursor.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super V> action) {
+            if (index >= end) {
+                return;
+            }
+            Cursor rest = cursor != null ? cursor : new Cursor(index, end);
+            index = end;
+            while (rest.hasNext()) {
+                action.accept(rest.next());
+            }
+        }
+
+        @Override
+        public Spliterator<V> trySplit() {
+            int middle = (index + end) >>> 1;
+            if (cursor != null || middle <= index) {
+                return null;
+            }
+            Chunk prefix = new Chunk(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    private final class ValuesView extends AbstractList<V> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(int index) {
+            Objects.checkIndex(index, root.size);
+            Node node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                int slot = 0;
+                Node child = (Node) node.slots[0];
+                while (index >= child.size) {
+                    index -= child.size;
+                    child = (Node) node.slots[++slot];
+                }
+                node = child;
+            }
+            return (V) node.slots[index];
+        }
+
+        @Override
+        public int size() {
+            return root.size;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Cursor(0, root.size);
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new Chunk(0, root.size);
+        }
+    }
+}
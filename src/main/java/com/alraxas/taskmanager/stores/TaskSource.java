@@ -0,0 +1,17 @@
+package com.alraxas.taskmanager.stores;
+
+import com.alraxas.taskmanager.models.Task;
+
+// Задачи, которые раскодируются по одной и только по требованию, например записи снимка
+// в отображенном в память файле. Записи упорядочены по возрастанию id
+public interface TaskSource {
+
+    int size();
+
+    long idAt(int index);
+
+    // Номер записи с таким id или -1
+    int indexOf(long id);
+
+    Task read(int index);
+}
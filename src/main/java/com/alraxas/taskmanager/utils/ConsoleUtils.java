@@ -1,19 +1,69 @@
 package com.alraxas.taskmanager.utils;
 
+import com.alraxas.taskmanager.enums.ListingFormat;
+import com.alraxas.taskmanager.metrics.ConsoleIoEvent;
+import com.alraxas.taskmanager.renderers.ListingRenderer;
+
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ConsoleUtils {
     private static final Scanner scanner = new Scanner(System.in);
+    // Scanner не потокобезопасен, а ответы читаются и из потоков рассылки будильников:
+    // чтения идут по одному под блокировкой. ReentrantLock, а не synchronized, чтобы
+    // ждущий виртуальный поток не занимал поток-носитель
+    private static final ReentrantLock inputLock = new ReentrantLock();
 
     public static void printLine(String line) {
+        ConsoleIoEvent event = new ConsoleIoEvent();
+        event.begin();
         System.out.println(line);
+        event.end("write", line);
     }
 
     public static void print(String message) {
+        ConsoleIoEvent event = new ConsoleIoEvent();
+        event.begin();
         System.out.print(message);
+        event.end("write", message);
+    }
+
+    // Время чтения включает ожидание пользователя - в записи JFR это отличает
+    // "приложение ждало ввода" от "приложение было занято"
+    private static String readLine() {
+        inputLock.lock();
+        try {
+            ConsoleIoEvent event = new ConsoleIoEvent();
+            event.begin();
+            String line = scanner.nextLine();
+            event.end("read", line);
+            return line;
+        } finally {
+            inputLock.unlock();
+        }
+    }
+
+    // Ждет Enter, только если консоль сейчас никто не читает: меню может ждать ввода
+    // сколько угодно, и поток рассылки не должен вставать за ним в очередь.
+    // false, если консоль занята или ввод закрыт
+    public static boolean promptEnterIfIdle(String prompt) {
+        if (!inputLock.tryLock()) {
+            return false;
+        }
+        try {
+            printLine(prompt);
+            if (!scanner.hasNextLine()) {
+                return false;
+            }
+            readLine();
+            return true;
+        } finally {
+            inputLock.unlock();
+        }
     }
 
     public static void printLine() {
@@ -54,12 +104,12 @@ public class ConsoleUtils {
 
     public static String readString(String prompt) {
         print(prompt + ": ");
-        String input = scanner.nextLine().trim();
+        String input = readLine().trim();
 
         while (input.isEmpty()) {
             printError("Text field can not be empty!");
             print(prompt + ": ");
-            input = scanner.nextLine().trim();
+            input = readLine().trim();
         }
 
         return input;
@@ -67,7 +117,7 @@ public class ConsoleUtils {
 
     public static String readString(String prompt, String defaultValue) {
         print(prompt + " [" + defaultValue + "]: ");
-        String input = scanner.nextLine().trim();
+        String input = readLine().trim();
         return input.isEmpty() ? defaultValue : input;
     }
 
@@ -75,7 +125,7 @@ public class ConsoleUtils {
         while (true) {
             try {
                 print(prompt + ": ");
-                String input = scanner.nextLine().trim();
+                String input = readLine().trim();
                 return Integer.parseInt(input);
             } catch (NumberFormatException e) {
                 printError("Please, enter a number!");
@@ -97,7 +147,7 @@ public class ConsoleUtils {
         while (true) {
             try {
                 print(prompt + ": ");
-                String input = scanner.nextLine().trim();
+                String input = readLine().trim();
                 return Long.parseLong(input);
             } catch (NumberFormatException e) {
                 printError("Please, enter a number!");
@@ -198,19 +248,25 @@ public class ConsoleUtils {
 
     public static void waitForEnter() {
         printLine("\nPress Enter to continue...");
-        scanner.nextLine();
+        readLine();
     }
 
     public static void printList(String title, List<?> items) {
+        printList(title, items, TimeUtils.getClock());
+    }
+
+    // clock - часы менеджера, которому принадлежат элементы списка
+    public static void printList(String title, List<?> items, Clock clock) {
         if (items == null || items.isEmpty()) {
             printInfo("List '" + title + " is empty");
             return;
         }
 
         printTitle(title);
-        for (int i = 0; i < items.size(); i++) {
-            printLine((i + 1) + ". " + items.get(i).toString());
-        }
+        // один буферизованный вывод на весь список вместо println на каждый элемент
+        ListingRenderer renderer = new ListingRenderer(System.out, ListingFormat.PLAIN, clock);
+        renderer.writeItems(items);
+        renderer.flush();
         printLine();
     }
 
@@ -1,14 +1,40 @@
 package com.alraxas.taskmanager.utils;
 
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
 
 public class TimeUtils {
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
+    // отсутствующее время в компактном представлении
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    // Общие часы моделей и утилит; в тестах подменяются фиксированными
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    public static Clock getClock() {
+        return clock;
+    }
+
+    public static void setClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock can not be null");
+        }
+        TimeUtils.clock = clock;
+    }
+
+    public static LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
     public static String formatDateTime(LocalDateTime dateTime) {
         return dateTime.format(DATE_TIME_FORMATTER);
     }
@@ -17,6 +43,15 @@ public class TimeUtils {
         return dateTime.format(TIME_FORMATTER);
     }
 
+    // Форматирование сразу в буфер вывода, без промежуточной строки
+    public static void appendDateTime(StringBuilder sb, LocalDateTime dateTime) {
+        DATE_TIME_FORMATTER.formatTo(dateTime, sb);
+    }
+
+    public static void appendTime(StringBuilder sb, LocalDateTime dateTime) {
+        TIME_FORMATTER.formatTo(dateTime, sb);
+    }
+
     public static LocalDateTime parseDateTime(String dateTimeString) {
         try {
             return LocalDateTime.parse(dateTimeString, DATE_TIME_FORMATTER);
@@ -26,8 +61,11 @@ public class TimeUtils {
     }
 
     public static LocalDateTime parseTimeToday(String timeString) {
+        return parseTimeToday(timeString, now());
+    }
+
+    public static LocalDateTime parseTimeToday(String timeString, LocalDateTime now) {
         try {
-            LocalDateTime now = LocalDateTime.now();
             LocalDateTime time = LocalDateTime.parse(
                     now.toLocalDate() + "T" + timeString + ":00"
             );
@@ -41,7 +79,10 @@ public class TimeUtils {
     }
 
     public static String getTimeUntilAlarm(LocalDateTime alarmTime) {
-        LocalDateTime now = LocalDateTime.now();
+        return getTimeUntilAlarm(alarmTime, now());
+    }
+
+    public static String getTimeUntilAlarm(LocalDateTime alarmTime, LocalDateTime now) {
         if (alarmTime.isBefore(now)) {
             return "PASSED";
         }
@@ -58,18 +99,64 @@ public class TimeUtils {
     }
 
     public static boolean isToday(LocalDateTime dateTime) {
-        return dateTime.toLocalDate().equals(LocalDateTime.now().toLocalDate());
+        return isToday(dateTime, now());
+    }
+
+    public static boolean isToday(LocalDateTime dateTime, LocalDateTime now) {
+        return dateTime.toLocalDate().equals(now.toLocalDate());
     }
 
     public static boolean isTomorrow(LocalDateTime dateTime) {
-        return dateTime.toLocalDate().equals(LocalDateTime.now().plusDays(1).toLocalDate());
+        return isTomorrow(dateTime, now());
+    }
+
+    public static boolean isTomorrow(LocalDateTime dateTime, LocalDateTime now) {
+        return dateTime.toLocalDate().equals(now.plusDays(1).toLocalDate());
     }
 
     public static LocalDateTime startOfDay(LocalDateTime dateTime) {
         return dateTime.toLocalDate().atStartOfDay();
     }
 
+    public static LocalDateTime startOfWeek(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+    }
+
     public static LocalDateTime endOfDay(LocalDateTime dateTime) {
         return dateTime.toLocalDate().atTime(23, 59, 59);
     }
-}
\ No newline at end of file
+
+    // Компактное представление времени: секунды от эпохи без часового пояса и наносекунды
+    // внутри секунды. Покрывает весь диапазон LocalDateTime; отсутствующее время - NO_TIME
+    // в секундах (такой секунды у LocalDateTime нет)
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime == null ? NO_TIME : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static int toNanoOfSecond(LocalDateTime dateTime) {
+        return dateTime == null ? 0 : dateTime.getNano();
+    }
+
+    public static LocalDateTime fromEpochSecond(long epochSecond, int nanoOfSecond) {
+        if (epochSecond == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, nanoOfSecond, ZoneOffset.UTC);
+    }
+
+    public static int compare(long epochSecond, int nanoOfSecond, long otherSecond, int otherNano) {
+        int bySeconds = Long.compare(epochSecond, otherSecond);
+        return bySeconds != 0 ? bySeconds : Integer.compare(nanoOfSecond, otherNano);
+    }
+
+    // Промежуток в наносекундах с насыщением: long вмещает лишь около 292 лет,
+    // а будильник может стоять на любой дате
+    public static long nanosBetween(LocalDateTime from, LocalDateTime to) {
+        Duration between = Duration.between(from, to);
+        try {
+            return between.toNanos();
+        } catch (ArithmeticException e) {
+            return between.isNegative() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+}
@@ -1,10 +1,24 @@
 package com.alraxas.taskmanager.managers;
 
 
+import com.alraxas.taskmanager.enums.EventType;
 import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.AlarmChangeListener;
+import com.alraxas.taskmanager.models.RecurrenceRule;
+import com.alraxas.taskmanager.schedulers.ShardStatistics;
 import com.alraxas.taskmanager.utils.TimeUtils;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class AlarmManagerTest {
@@ -34,4 +48,276 @@ class AlarmManagerTest {
         alarmManager.deactivateAlarm(alarm.getId());
         assertFalse(alarm.isActive());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testStatisticsStayConsistent() {
+        alarmManager.setStatisticsCheck(true);
+        Alarm first = alarmManager.setAlarm("first", LocalDateTime.now().plusHours(1));
+        Alarm second = alarmManager.setAlarm("second", LocalDateTime.now().plusDays(2));
+        alarmManager.setAlarm("third", LocalDateTime.now().plusDays(3));
+
+        alarmManager.deactivateAlarm(first.getId());
+        second.setRecurring(true);
+        alarmManager.toggleAlarm(second.getId());
+
+        Map<String, Integer> stats = alarmManager.getStatistics();
+        assertEquals(3, stats.get("All alarms"));
+        assertEquals(1, stats.get("Active"));
+        assertEquals(1, stats.get("Repeated"));
+
+        alarmManager.removeAlarm(second.getId());
+        assertEquals(0, alarmManager.getStatistics().get("Repeated"));
+    }
+
+    @Test
+    public void testGeneratedIdsSkipImportedAlarm() {
+        AlarmManager manager = new AlarmManager(1, 16);
+        try {
+            Alarm imported = manager.setAlarm(new Alarm(5L, "imported", LocalDateTime.now().plusDays(1)));
+            for (int i = 0; i < 4; i++) {
+                assertTrue(manager.setAlarm("generated " + i, LocalDateTime.now().plusDays(1)).getId() > imported.getId());
+            }
+            assertSame(imported, manager.getAlarmById(5L));
+            assertEquals(5, manager.getAlarmCount());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testSchedulerFiresAtDeadline() throws InterruptedException {
+        LocalDateTime fireAt = LocalDateTime.now().plusNanos(200_000_000);
+        Alarm once = alarmManager.setAlarm("once", fireAt);
+        Alarm daily = alarmManager.setAlarm("daily", fireAt);
+        daily.setRecurring(true);
+        Alarm later = alarmManager.setAlarm("later", LocalDateTime.now().plusHours(1));
+        alarmManager.deactivateAlarm(later.getId());
+        assertEquals(2, alarmManager.getScheduledAlarmCount());
+
+        alarmManager.startAlarmChecker();
+        try {
+            long deadline = System.currentTimeMillis() + 3000;
+            while ((once.isActive() || alarmManager.getScheduledAlarmCount() != 1) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            alarmManager.shutdown();
+        }
+
+        assertFalse(once.isActive());
+        assertEquals(fireAt.plusDays(1), daily.getAlarmTime());
+        assertEquals(1, alarmManager.getScheduledAlarmCount());
+    }
+
+    @Test
+    public void testBlockedListenerDoesNotDelayOtherAlarms() throws InterruptedException {
+        AlarmManager manager = new AlarmManager(8, 5_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1_000);
+        manager.addAlarmListener(event -> {
+            if (event.getAlarm().getMessage().equals("blocking")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                delivered.countDown();
+            }
+        });
+
+        LocalDateTime fireAt = LocalDateTime.now().plusNanos(200_000_000);
+        manager.setAlarm("blocking", fireAt);
+        for (int i = 0; i < 1_000; i++) {
+            manager.setAlarm("alarm " + i, fireAt);
+        }
+
+        manager.startAlarmChecker();
+        try {
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(0, manager.getDroppedAlarmCount());
+        } finally {
+            release.countDown();
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testDroppedAndFailedDeliveriesAreReported() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 10, 0);
+        AlarmManager manager = new AlarmManager(1, 1, Clock.fixed(start.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), 1);
+        Queue<EventType> events = new ConcurrentLinkedQueue<>();
+        manager.setEventSink((type, id, detail) -> events.add(type));
+        CountDownLatch release = new CountDownLatch(1);
+        // первая доставка занимает единственный поток, вторая ждет в очереди, остальные не помещаются
+        manager.addAlarmListener(event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (event.getAlarm().getMessage().equals("alarm 1")) {
+                throw new IllegalStateException("listener failed");
+            }
+        });
+        for (int i = 0; i < 5; i++) {
+            manager.setAlarm("alarm " + i, start.minusMinutes(5 - i));
+        }
+
+        manager.startAlarmChecker();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.getDroppedAlarmCount() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            while (manager.getDeliveredAlarmCount() + manager.getFailedAlarmDeliveryCount() < 2
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            manager.shutdown();
+        }
+        assertEquals(3, manager.getDroppedAlarmCount());
+        assertEquals(3, events.stream().filter(type -> type == EventType.ALARM_DELIVERY_DROPPED).count());
+        assertTrue(events.contains(EventType.ALARM_LISTENER_FAILED));
+        assertEquals(1, manager.getFailedAlarmDeliveryCount());
+        assertEquals(1, manager.getDeliveredAlarmCount());
+    }
+
+    @Test
+    public void testChecksFollowInjectedClock() {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 10, 0);
+        AlarmManager manager = new AlarmManager(1, 16, Clock.fixed(start.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        manager.setStatisticsCheck(true);
+        try {
+            Alarm once = manager.setAlarm("once", start.plusHours(1));
+            manager.setAlarm("tomorrow", start.plusDays(1));
+            assertEquals(start, once.getCreatedAt());
+            // время уже прошло по часам менеджера - будильник переносится на завтра
+            Alarm quick = manager.setQuickAlarm("quick", "09:00");
+            assertEquals(start, quick.getCreatedAt());
+            assertEquals(start.plusDays(1).withHour(9), quick.getAlarmTime());
+            assertThrows(IllegalArgumentException.class, () -> new AlarmManager(1, 16, null, 1));
+
+            assertEquals(1, manager.getTodayAlarms().size());
+            assertEquals(1, manager.getStatistics().get("Today"));
+
+            LocalDateTime afterOnce = start.plusHours(2);
+            manager.setClock(Clock.fixed(afterOnce.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+            assertTrue(once.shouldTrigger(afterOnce));
+            manager.deactivateAlarm(once.getId());
+            assertEquals(1, manager.getExpiredAlarms().size());
+            assertEquals(1, manager.getStatistics().get("Expired"));
+
+            manager.snoozeAlarm(manager.getAllAlarms().get(1).getId(), 10);
+            assertEquals(afterOnce.plusMinutes(10), manager.getAllAlarms().get(1).getAlarmTime());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testSetClockWakesSleepingScheduler() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 10, 0);
+        AlarmManager manager = new AlarmManager(1, 16, Clock.fixed(start.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), 2);
+        CountDownLatch delivered = new CountDownLatch(2);
+        manager.addAlarmListener(event -> delivered.countDown());
+        manager.setAlarm("first", start.plusHours(1));
+        manager.setAlarm("second", start.plusHours(1));
+
+        manager.startAlarmChecker();
+        try {
+            // оба шарда успевают заснуть на час по старым часам
+            Thread.sleep(100);
+            manager.setClock(Clock.fixed(start.plusHours(2).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testAlreadyFiredRecurringAlarmMovesToNextOccurrence() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 10, 0);
+        AlarmManager manager = new AlarmManager(1, 16, Clock.fixed(start.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), 1);
+        CountDownLatch delivered = new CountDownLatch(1);
+        manager.addAlarmListener(event -> delivered.countDown());
+        // восстановленное состояние: на 9:00 будильник уже звонил
+        Alarm restored = manager.setAlarm(new Alarm(1L, "standup", start.minusHours(1), true,
+                RecurrenceRule.everyHours(1), start.minusDays(1), start.minusMinutes(30)));
+
+        manager.startAlarmChecker();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!restored.getAlarmTime().isAfter(start) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            manager.shutdown();
+        }
+        assertEquals(start.plusHours(1), restored.getAlarmTime());
+        assertEquals(1, delivered.getCount());
+    }
+
+    @Test
+    public void testFailedCheckDoesNotStopShard() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 10, 0);
+        AlarmManager manager = new AlarmManager(1, 16, Clock.fixed(start.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), 1);
+        Queue<EventType> events = new ConcurrentLinkedQueue<>();
+        manager.setEventSink((type, id, detail) -> events.add(type));
+        CountDownLatch delivered = new CountDownLatch(2);
+        manager.addAlarmListener(event -> delivered.countDown());
+        // слушатель изменений падает при срабатывании первого будильника - внутри проверки шарда
+        manager.addChangeListener(new AlarmChangeListener() {
+            @Override
+            public void onStateChanged(Alarm alarm, boolean wasActive, boolean wasRecurring) {
+                if (alarm.getMessage().equals("broken")) {
+                    throw new IllegalStateException("broken listener");
+                }
+            }
+        });
+        manager.setAlarm("broken", start.minusMinutes(2));
+        manager.setAlarm("healthy", start.minusMinutes(1));
+
+        manager.startAlarmChecker();
+        try {
+            manager.setAlarm("later", start.minusSeconds(1));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        } finally {
+            manager.shutdown();
+        }
+        assertTrue(events.contains(EventType.ALARM_CHECK_FAILED));
+    }
+
+    @Test
+    public void testShardedSchedulerSplitsAlarmsById() throws InterruptedException {
+        AlarmManager manager = new AlarmManager(4, 1_000, Clock.systemDefaultZone(), 4);
+        CountDownLatch delivered = new CountDownLatch(200);
+        manager.addAlarmListener(event -> delivered.countDown());
+
+        LocalDateTime fireAt = LocalDateTime.now().plusNanos(200_000_000);
+        for (int i = 0; i < 200; i++) {
+            manager.setAlarm("alarm " + i, fireAt);
+        }
+        List<ShardStatistics> before = manager.getSchedulerStatistics();
+        assertEquals(4, before.size());
+        for (ShardStatistics shard : before) {
+            assertEquals(50, shard.getScheduled());
+        }
+
+        manager.startAlarmChecker();
+        try {
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        } finally {
+            manager.shutdown();
+        }
+
+        for (ShardStatistics shard : manager.getSchedulerStatistics()) {
+            assertEquals(0, shard.getScheduled());
+            assertEquals(50, shard.getFired());
+            assertTrue(shard.getMaxLagNanos() >= shard.getMeanLagNanos());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new AlarmManager(1, 16, Clock.systemDefaultZone(), 0));
+    }
+}
@@ -0,0 +1,145 @@
+package com.alraxas.taskmanager.managers;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManagersConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 2_000;
+
+    @Test
+    public void testConcurrentTaskUpdatesAreNotLost() throws Exception {
+        TaskManager taskManager = new TaskManager();
+        taskManager.setEventSink(NoOpEventSink.INSTANCE);
+        taskManager.setStatisticsCheck(true);
+        LocalDateTime past = LocalDateTime.now().minusDays(1);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                Task task = taskManager.addTask("task " + thread + "-" + i, "stress", TaskPriority.LOW, past);
+                switch (i % 4) {
+                    case 0 -> taskManager.completeTask(task.getId());
+                    case 1 -> taskManager.cancelTask(task.getId());
+                    case 2 -> taskManager.updateTask(task.getId(), "renamed " + i, "stress", TaskPriority.URGENT);
+                    default -> taskManager.removeTask(task.getId());
+                }
+                // чтения идут параллельно с записью из других потоков
+                taskManager.getActiveTasks();
+                taskManager.searchTasksByTitle("renamed");
+                taskManager.getOverdueTasks();
+            }
+        });
+
+        int perKind = THREADS * OPERATIONS / 4;
+        assertEquals(3 * perKind, taskManager.getTaskCount());
+        assertEquals(perKind, taskManager.getCompletedTasks().size());
+        assertEquals(perKind, taskManager.filterTasksByStatus(TaskStatus.CANCELLED).size());
+        assertEquals(perKind, taskManager.getTasksByPriority(TaskPriority.URGENT).size());
+        assertEquals(perKind, taskManager.searchTasksByTitle("renamed").size());
+
+        Map<String, Integer> stats = taskManager.getStatistics(); // сверка со сплошным подсчетом
+        assertEquals(perKind, stats.get("Active"));
+        assertEquals(2 * perKind, stats.get("Overdue")); // отмененные тоже считаются просроченными
+    }
+
+    @Test
+    public void testConcurrentAddAndRemoveOfSameIdLeavesNoGhosts() throws Exception {
+        TaskManager taskManager = new TaskManager();
+        taskManager.setEventSink(NoOpEventSink.INSTANCE);
+        taskManager.setStatisticsCheck(true);
+        LocalDateTime past = LocalDateTime.now().minusDays(1);
+
+        // потоки работают парами: один добавляет задачи со своими id, второй удаляет каждую,
+        // как только она появилась, то есть прямо посреди её добавления
+        runConcurrently(thread -> {
+            long firstId = (long) (thread / 2) * OPERATIONS + 1;
+            for (long id = firstId; id < firstId + OPERATIONS; id++) {
+                if (thread % 2 == 0) {
+                    taskManager.addTask(new Task(id, "race " + id, "same id", TaskPriority.HIGH, past));
+                } else {
+                    while (taskManager.getTaskById(id) == null) {
+                        Thread.onSpinWait();
+                    }
+                    assertTrue(taskManager.removeTask(id));
+                }
+            }
+        });
+
+        assertEquals(0, taskManager.getTaskCount());
+        assertEquals(List.of(), taskManager.snapshot().values());
+        assertEquals(List.of(), taskManager.getAllTasks());
+        assertEquals(List.of(), taskManager.getTasksByPriority(TaskPriority.HIGH));
+        assertEquals(List.of(), taskManager.getOverdueTasks());
+        assertEquals(List.of(), taskManager.searchTasksByTitle("race"));
+        assertEquals(0, taskManager.getStatistics().get("Total tasks")); // сверка со сплошным подсчетом
+    }
+
+    @Test
+    public void testConcurrentAlarmUpdatesWhileSchedulerRuns() throws Exception {
+        AlarmManager alarmManager = new AlarmManager(4, 1_000);
+        alarmManager.setEventSink(NoOpEventSink.INSTANCE);
+        alarmManager.setStatisticsCheck(true);
+        alarmManager.startAlarmChecker();
+        LocalDateTime future = LocalDateTime.now().plusDays(1);
+
+        try {
+            runConcurrently(thread -> {
+                for (int i = 0; i < OPERATIONS; i++) {
+                    Alarm alarm = alarmManager.setAlarm("alarm " + thread + "-" + i, future.plusSeconds(i));
+                    switch (i % 3) {
+                        case 0 -> alarmManager.deactivateAlarm(alarm.getId());
+                        case 1 -> alarmManager.removeAlarm(alarm.getId());
+                        default -> alarmManager.snoozeAlarm(alarm.getId(), 60 * 24 * 2);
+                    }
+                    alarmManager.getActiveAlarms();
+                }
+            });
+        } finally {
+            alarmManager.shutdown();
+        }
+
+        int expectedActive = THREADS * (OPERATIONS / 3);
+        assertEquals(THREADS * (OPERATIONS - OPERATIONS / 3 - 1), alarmManager.getAlarmCount());
+        assertEquals(expectedActive, alarmManager.getActiveAlarms().size());
+        assertEquals(expectedActive, alarmManager.getScheduledAlarmCount());
+        assertEquals(expectedActive, alarmManager.getStatistics().get("Active"));
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int threadNumber = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                worker.run(threadNumber);
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS); // пробрасывает ConcurrentModificationException и прочие сбои
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -2,9 +2,28 @@ package com.alraxas.taskmanager.managers;
 
 import com.alraxas.taskmanager.enums.TaskPriority;
 import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.events.RingBufferEventSink;
 import com.alraxas.taskmanager.models.Task;
+import com.alraxas.taskmanager.queries.Page;
+import com.alraxas.taskmanager.queries.TaskQuery;
+import com.alraxas.taskmanager.utils.TimeUtils;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class TaskManagerTest {
@@ -39,4 +58,460 @@ class TaskManagerTest {
         taskManager.completeTask(task.getId());
         assertEquals(TaskStatus.COMPLETED, task.getTaskStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRemoveTaskKeepsInsertionOrder() {
+        Task first = taskManager.addTask("first", "desc");
+        Task second = taskManager.addTask("second", "desc");
+        Task third = taskManager.addTask("third", "desc");
+
+        assertTrue(taskManager.removeTask(second.getId()));
+        assertFalse(taskManager.removeTask(second.getId()));
+        assertNull(taskManager.getTaskById(second.getId()));
+        assertSame(third, taskManager.getTaskById(third.getId()));
+        assertEquals(List.of(first, third), taskManager.getAllTasks());
+    }
+
+    @Test
+    public void testExplicitIdsKeepInsertionOrder() {
+        taskManager.addTask(new Task(9L, "late", "desc"));
+        taskManager.addTask(new Task(3L, "early", "desc"));
+        taskManager.addTasks(List.of(new Task(7L, "bulk", "desc")));
+
+        assertEquals(List.of(9L, 3L, 7L), taskManager.getAllTasks().stream().map(Task::getId).toList());
+        // снимок и постраничный обход по-прежнему идут по id
+        assertEquals(List.of(3L, 7L, 9L), taskManager.snapshot().values().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void testGeneratedIdsSkipImportedTask() {
+        Task imported = taskManager.addTask(new Task(5L, "imported", "desc"));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(taskManager.addTask("generated " + i, "desc").getId() > imported.getId());
+        }
+        assertSame(imported, taskManager.getTaskById(5L));
+        assertEquals(5, taskManager.getTaskCount());
+    }
+
+    @Test
+    public void testStatusAndPriorityQueriesFollowTransitions() {
+        Task low = taskManager.addTask("low", "desc", TaskPriority.LOW);
+        Task urgent = taskManager.addTask("urgent", "desc", TaskPriority.URGENT);
+        Task high = taskManager.addTask("high", "desc", TaskPriority.HIGH);
+
+        assertEquals(List.of(urgent, high), taskManager.getHighPriorityTasks());
+
+        taskManager.markTaskInProgress(urgent.getId());
+        taskManager.completeTask(high.getId());
+        low.setTaskPriority(TaskPriority.URGENT);
+
+        assertEquals(List.of(low, urgent), taskManager.getActiveTasks());
+        assertEquals(List.of(urgent), taskManager.filterTasksByStatus(TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(high), taskManager.getCompletedTasks());
+        assertEquals(List.of(low, urgent), taskManager.getTasksByPriority(TaskPriority.URGENT));
+        assertTrue(taskManager.getTasksByPriority(TaskPriority.LOW).isEmpty());
+
+        taskManager.removeTask(urgent.getId());
+        urgent.markCancelled();
+        assertEquals(List.of(low), taskManager.getActiveTasks());
+        assertTrue(taskManager.filterTasksByStatus(TaskStatus.CANCELLED).isEmpty());
+    }
+
+    @Test
+    public void testDueDateQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        Task overdue = taskManager.addTask("overdue", "desc", TaskPriority.LOW, now.minusDays(2));
+        Task done = taskManager.addTask("done", "desc", TaskPriority.LOW, now.minusDays(3));
+        Task later = taskManager.addTask("later", "desc", TaskPriority.LOW, now.plusDays(30));
+        taskManager.addTask("no due date", "desc");
+        taskManager.completeTask(done.getId());
+
+        assertEquals(List.of(overdue), taskManager.getOverdueTasks());
+        assertEquals(List.of(done, overdue), taskManager.getTasksDueBetween(now.minusDays(5), now));
+
+        later.setDueDate(now.minusDays(1));
+        assertEquals(List.of(overdue, later), taskManager.getOverdueTasks());
+        assertTrue(taskManager.getTasksDueBetween(now, now.plusDays(60)).isEmpty());
+
+        later.setDueDate(TimeUtils.startOfDay(now).plusHours(12));
+        assertEquals(List.of(later), taskManager.getTodayTasks());
+        assertTrue(taskManager.getThisWeekTasks().contains(later));
+    }
+
+    @Test
+    public void testStatisticsStayConsistent() {
+        taskManager.setStatisticsCheck(true);
+        LocalDateTime now = LocalDateTime.now();
+        Task urgent = taskManager.addTask("urgent", "desc", TaskPriority.URGENT, now.minusDays(1));
+        Task low = taskManager.addTask("low", "desc", TaskPriority.LOW);
+        Task high = taskManager.addTask("high", "desc", TaskPriority.HIGH, now.plusDays(1));
+
+        taskManager.completeTask(low.getId());
+        taskManager.cancelTask(high.getId());
+        urgent.setTaskPriority(TaskPriority.MEDIUM);
+
+        Map<String, Integer> stats = taskManager.getStatistics();
+        assertEquals(3, stats.get("Total tasks"));
+        assertEquals(1, stats.get("Active"));
+        assertEquals(1, stats.get("Completed"));
+        assertEquals(1, stats.get("Overdue"));
+        assertEquals(1, stats.get(TaskPriority.HIGH.getDisplayName()));
+        assertEquals(1, stats.get(TaskPriority.MEDIUM.getDisplayName()));
+
+        taskManager.removeTask(urgent.getId());
+        assertEquals(0, taskManager.getStatistics().get("Overdue"));
+
+        // завершенная задача уходит из просроченных, даже если её срок потом сдвинут,
+        // и возвращается в них вместе со статусом
+        Task late = taskManager.addTask("late", "desc", TaskPriority.LOW, now.minusHours(1));
+        assertEquals(1, taskManager.getStatistics().get("Overdue"));
+        taskManager.completeTask(late.getId());
+        late.setDueDate(now.minusHours(2));
+        assertEquals(0, taskManager.getStatistics().get("Overdue"));
+        late.setTaskStatus(TaskStatus.PENDING);
+        assertEquals(1, taskManager.getStatistics().get("Overdue"));
+        assertEquals(List.of(late), taskManager.getOverdueTasks());
+    }
+
+    @Test
+    public void testSearchFollowsTitleAndDescriptionChanges() {
+        Task report = taskManager.addTask("Write REPORT", "quarterly numbers");
+        Task review = taskManager.addTask("Review report", "numbers for Q3");
+        Task lunch = taskManager.addTask("Lunch", "with team");
+
+        assertEquals(List.of(report, review), taskManager.searchTasksByTitle("rePort"));
+        assertEquals(List.of(report, review), taskManager.searchTasksByDescription("NUMBERS"));
+        assertEquals(List.of(report, review), taskManager.searchTasksByTitle("r"));
+        assertTrue(taskManager.searchTasksByTitle("reports").isEmpty());
+
+        taskManager.updateTask(lunch.getId(), "Report lunch", "team numbers", TaskPriority.LOW);
+        review.setTitle("Review");
+        assertEquals(List.of(report, lunch), taskManager.searchTasksByTitle("report"));
+        assertEquals(List.of(report, review, lunch), taskManager.searchTasksByDescription("numbers"));
+
+        taskManager.removeTask(report.getId());
+        assertEquals(List.of(lunch), taskManager.searchTasksByTitle("report"));
+    }
+
+    @Test
+    public void testBulkOperations() {
+        List<Task> imported = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            imported.add(new Task(id, "imported " + id, "batch", id % 2 == 0 ? TaskPriority.HIGH : TaskPriority.LOW));
+        }
+        assertEquals(100, taskManager.addTasks(imported));
+        assertEquals(101L, taskManager.addTask("after import", "desc").getId());
+
+        assertEquals(2, taskManager.completeTasks(List.of(1L, 2L, 999L)));
+        assertEquals(49, taskManager.cancelWhere(task -> task.getTaskPriority() == TaskPriority.LOW && !task.isCompleted()));
+        assertEquals(3, taskManager.removeTasks(List.of(3L, 4L, 101L)));
+
+        assertEquals(List.of(imported.get(0), imported.get(1)), taskManager.getCompletedTasks());
+        assertEquals(48, taskManager.filterTasksByStatus(TaskStatus.CANCELLED).size());
+        assertEquals(48, taskManager.getActiveTasks().size());
+        assertEquals(2, taskManager.removeWhere(Task::isCompleted));
+        assertEquals(96, taskManager.getTaskCount());
+    }
+
+    @Test
+    public void testBulkOperationsCountOnlyRealTransitions() {
+        Task done = taskManager.addTask("done", "desc");
+        Task dropped = taskManager.addTask("dropped", "desc");
+        Task open = taskManager.addTask("open", "desc");
+        assertTrue(done.markCompleted());
+        assertTrue(dropped.markCancelled());
+
+        // завершенную задачу не отменить, отмененную не завершить, повторный id - не второй переход
+        assertEquals(0, taskManager.cancelTasks(List.of(done.getId(), dropped.getId())));
+        assertEquals(1, taskManager.completeTasks(List.of(open.getId(), open.getId(), dropped.getId())));
+        assertEquals(0, taskManager.cancelWhere(task -> true));
+
+        assertEquals(TaskStatus.COMPLETED, done.getTaskStatus());
+        assertEquals(TaskStatus.CANCELLED, dropped.getTaskStatus());
+        assertEquals(TaskStatus.COMPLETED, open.getTaskStatus());
+        assertFalse(open.markCompleted());
+        assertFalse(open.markCancelled());
+    }
+
+    @Test
+    public void testEventsGoThroughRingBufferSink() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RingBufferEventSink sink = new RingBufferEventSink(1024, out);
+        taskManager.setEventSink(sink);
+
+        Task task = taskManager.addTask("buffered", "desc");
+        taskManager.completeTask(task.getId());
+        taskManager.removeTask(42L);
+        sink.close();
+
+        String separator = System.lineSeparator();
+        assertEquals("Task added: buffered" + separator
+                + "Task #" + task.getId() + " done" + separator
+                + "Task #42 not found" + separator, out.toString(StandardCharsets.UTF_8));
+        assertEquals(0, sink.getDroppedCount());
+    }
+
+    @Test
+    public void testColumnarScansMatchIndexes() {
+        taskManager.setStatisticsCheck(true);
+        LocalDateTime past = LocalDateTime.now().minusDays(1);
+        LocalDateTime future = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 3000; i++) {
+            Task task = taskManager.addTask("task " + i, "описание " + i, TaskPriority.MEDIUM,
+                    i % 3 == 0 ? future : past);
+            if (i % 5 == 0) {
+                taskManager.completeTask(task.getId());
+            }
+        }
+        List<Task> expected = taskManager.getOverdueTasks();
+
+        taskManager.setColumnarScans(true);
+        assertEquals(expected, taskManager.getOverdueTasks());
+        taskManager.getStatistics();
+
+        // изменения после включения попадают в колонки
+        Task first = expected.get(0);
+        taskManager.completeTask(first.getId());
+        taskManager.removeTask(expected.get(1).getId());
+        Task renamed = expected.get(2);
+        taskManager.updateTask(renamed.getId(), "переименована", "новое описание", TaskPriority.URGENT);
+        taskManager.addTask("late", "desc", TaskPriority.LOW, past);
+
+        List<Task> overdue = taskManager.getOverdueTasks();
+        assertFalse(overdue.contains(first));
+        assertEquals(expected.size() - 1, overdue.size());
+        taskManager.getStatistics();
+
+        taskManager.setColumnarScans(false);
+        assertEquals(overdue, taskManager.getOverdueTasks());
+    }
+
+    @Test
+    public void testCompactTimestampsRoundTrip() {
+        LocalDateTime due = LocalDateTime.of(2031, 5, 17, 9, 30, 15, 123_456_789);
+        Task task = taskManager.addTask("exact", "desc", TaskPriority.LOW, due);
+        assertEquals(due, task.getDueDate());
+        assertNull(taskManager.addTask("no due date", "desc").getDueDate());
+        assertEquals(List.of(task), taskManager.getTasksDueBetween(due, due.plusNanos(1)));
+
+        task.setDueDate(LocalDateTime.of(1970, 1, 1, 0, 0).minusNanos(1));
+        assertTrue(task.isOverdue());
+
+        // даты за пределами 1677-2262 хранятся так же точно
+        LocalDateTime farFuture = LocalDateTime.of(3000, 1, 1, 0, 0, 0, 1);
+        LocalDateTime farPast = LocalDateTime.of(1500, 6, 1, 12, 0);
+        task.setDueDate(farFuture);
+        Task past = taskManager.addTask("past", "desc", TaskPriority.LOW, farPast);
+        assertEquals(farFuture, task.getDueDate());
+        assertFalse(task.isOverdue());
+        assertTrue(past.isOverdue());
+        assertEquals(List.of(past, task), taskManager.getTasksDueBetween(LocalDateTime.MIN, LocalDateTime.MAX));
+        assertEquals(List.of(task), taskManager.query(TaskQuery.tasks().dueBetween(farFuture, null)));
+        assertEquals(new Task(task.getId(), "copy", "desc"), task);
+    }
+
+    @Test
+    public void testQueriesFollowInjectedClock() {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 10, 0);
+        TaskManager manager = new TaskManager(Clock.fixed(start.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        manager.setStatisticsCheck(true);
+        Task soon = manager.addTask("soon", "desc", TaskPriority.HIGH, start.plusHours(1));
+        Task later = manager.addTask("later", "desc", TaskPriority.LOW, start.plusDays(3));
+        // время создания тоже берется из часов менеджера
+        assertEquals(start, soon.getCreatedAt());
+        assertEquals(start, manager.addTask("plain", "desc").getCreatedAt());
+        assertThrows(IllegalArgumentException.class, () -> new TaskManager(null));
+
+        assertEquals(List.of(), manager.getOverdueTasks());
+        assertEquals(List.of(soon), manager.getTodayTasks());
+        assertEquals(0, manager.getStatistics().get("Overdue"));
+
+        // перемотка часов: срок первой задачи прошел
+        LocalDateTime afterSoon = start.plusHours(2);
+        manager.setClock(Clock.fixed(afterSoon.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        assertEquals(List.of(soon), manager.getOverdueTasks());
+        assertEquals(1, manager.getStatistics().get("Overdue"));
+        assertTrue(soon.isOverdue(afterSoon));
+        assertFalse(later.isOverdue(afterSoon));
+
+        manager.completeTask(soon.getId());
+        assertEquals(afterSoon, soon.getCompletedAt());
+        assertEquals(List.of(), manager.getOverdueTasks());
+    }
+
+    @Test
+    public void testKeysetPagination() {
+        for (int i = 0; i < 250; i++) {
+            Task task = taskManager.addTask("task " + i, "desc", i % 3 == 0 ? TaskPriority.URGENT : TaskPriority.LOW);
+            if (i % 2 == 0) {
+                taskManager.completeTask(task.getId());
+            }
+        }
+
+        List<Task> collected = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            Page<Task> page = taskManager.page(task -> !task.isCompleted(), cursor, 40);
+            collected.addAll(page.getItems());
+            cursor = page.getNextAfterId();
+            pages++;
+        } while (cursor != null);
+        assertEquals(taskManager.getActiveTasks(), collected);
+        assertEquals(4, pages);
+
+        // курсор остается валидным, даже если задачу-курсор удалили
+        Page<Task> first = taskManager.pageByStatus(null, 10, TaskStatus.COMPLETED, TaskStatus.PENDING);
+        assertEquals(taskManager.getAllTasks().subList(0, 10), first.getItems());
+        taskManager.removeTask(first.getNextAfterId());
+        assertEquals(taskManager.getAllTasks().subList(9, 19),
+                taskManager.pageByStatus(first.getNextAfterId(), 10, TaskStatus.COMPLETED, TaskStatus.PENDING).getItems());
+
+        Page<Task> urgent = taskManager.pageByPriority(100L, 5, TaskPriority.URGENT);
+        assertEquals(List.of(103L, 106L, 109L, 112L, 115L), urgent.getItems().stream().map(Task::getId).toList());
+        assertTrue(urgent.hasNext());
+
+        assertEquals(249, taskManager.streamTasks().count());
+        assertEquals(248L, taskManager.iterateTasks(247L).next().getId());
+        assertThrows(IllegalArgumentException.class, () -> taskManager.page(null, null, 0));
+    }
+
+    @Test
+    public void testQueryPlannerPicksSelectiveIndex() {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 10, 0);
+        TaskManager manager = new TaskManager(Clock.fixed(start.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        TaskPriority[] priorities = TaskPriority.values();
+        for (int i = 0; i < 300; i++) {
+            String title = "task " + i + (i % 50 == 0 ? " zebra" : "");
+            String description = i % 7 == 0 ? "send invoice" : "desc";
+            Task task = i % 5 == 0
+                    ? manager.addTask(title, description, priorities[i % priorities.length])
+                    : manager.addTask(title, description, priorities[i % priorities.length], start.plusHours(i - 100));
+            if (i % 3 == 0) {
+                manager.completeTask(task.getId());
+            } else if (i % 11 == 0) {
+                manager.cancelTask(task.getId());
+            }
+        }
+
+        TaskQuery urgentPending = TaskQuery.tasks().status(TaskStatus.PENDING).priority(TaskPriority.URGENT);
+        assertEquals("priority", manager.explain(urgentPending));
+        assertEquals(filter(manager, task -> task.getTaskStatus() == TaskStatus.PENDING
+                && task.getTaskPriority() == TaskPriority.URGENT), manager.query(urgentPending));
+
+        TaskQuery zebra = TaskQuery.tasks().titleContains("ZEBRA").status(TaskStatus.COMPLETED);
+        assertEquals("title", manager.explain(zebra));
+        assertEquals(filter(manager, task -> task.getTitle().contains("zebra") && task.isCompleted()),
+                manager.query(zebra));
+
+        TaskQuery overdue = TaskQuery.tasks().overdue();
+        assertEquals("dueDate", manager.explain(overdue));
+        assertEquals(filter(manager, task -> task.isOverdue(start)), manager.query(overdue));
+
+        TaskQuery created = TaskQuery.tasks().createdBetween(null, start.plusDays(1));
+        assertEquals("scan", manager.explain(created));
+        assertEquals(manager.getAllTasks(), manager.query(created));
+
+        // сортировка и limit применяются после отбора
+        TaskQuery latest = TaskQuery.tasks().priority(TaskPriority.LOW, TaskPriority.HIGH)
+                .dueBetween(start, start.plusHours(100)).descriptionContains("invoice")
+                .orderBy(Comparator.comparing(Task::getDueDate).reversed()).limit(3);
+        List<Task> expected = filter(manager, task -> task.getDueDate() != null
+                && !task.getDueDate().isBefore(start) && task.getDueDate().isBefore(start.plusHours(100))
+                && task.getDescription().contains("invoice")
+                && (task.getTaskPriority() == TaskPriority.LOW || task.getTaskPriority() == TaskPriority.HIGH));
+        expected.sort(Comparator.comparing(Task::getDueDate).reversed());
+        assertEquals(expected.subList(0, 3), manager.query(latest));
+
+        // постраничный обход запроса совпадает с полным результатом при любом источнике
+        for (TaskQuery query : List.of(overdue, zebra, urgentPending)) {
+            List<Task> collected = new ArrayList<>();
+            Long cursor = null;
+            do {
+                Page<Task> page = manager.query(query, cursor, 7);
+                collected.addAll(page.getItems());
+                cursor = page.getNextAfterId();
+            } while (cursor != null);
+            assertEquals(manager.query(query), collected);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> TaskQuery.tasks().limit(0));
+        assertThrows(IllegalArgumentException.class, () -> TaskQuery.tasks().titleContains(""));
+    }
+
+    @Test
+    public void testParallelScansKeepIdOrder() {
+        TaskManager manager = new TaskManager();
+        manager.setEventSink(NoOpEventSink.INSTANCE);
+        manager.setStatisticsCheck(true);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            manager.setParallelScan(pool, 1);
+            TaskPriority[] priorities = TaskPriority.values();
+            for (int i = 0; i < 20_000; i++) {
+                Task task = manager.addTask("task " + i, "desc", priorities[i % priorities.length],
+                        i % 3 == 0 ? LocalDateTime.now().minusDays(1) : LocalDateTime.now().plusDays(1));
+                if (i % 4 == 0) {
+                    manager.completeTask(task.getId());
+                }
+            }
+
+            Predicate<Task> urgentOverdue = task -> task.getTaskPriority() == TaskPriority.URGENT && task.isOverdue();
+            assertEquals(filter(manager, urgentOverdue), manager.filterTasks(urgentOverdue));
+            assertEquals(manager.getAllTasks(),
+                    manager.query(TaskQuery.tasks().createdBetween(null, LocalDateTime.now().plusDays(1))));
+            // режим проверки сверяет параллельный подсчет со счетчиками индексов
+            assertEquals(20_000, manager.getStatistics().get("Total tasks"));
+
+            // массовые изменения не уходят в пул: условие вызывается только в этом потоке
+            int expected = filter(manager, Task::isCompleted).size();
+            Thread caller = Thread.currentThread();
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            assertEquals(expected, manager.removeWhere(task -> {
+                threads.add(Thread.currentThread());
+                return task.isCompleted();
+            }));
+            assertEquals(Set.of(caller), threads);
+            assertEquals(List.of(), manager.getCompletedTasks());
+            assertEquals(20_000 - expected, manager.getStatistics().get("Total tasks"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSnapshotIsStableWhileWritersPublishVersions() {
+        TaskManager manager = new TaskManager();
+        manager.setEventSink(NoOpEventSink.INSTANCE);
+        for (int i = 0; i < 100; i++) {
+            manager.addTask("task " + i, "desc");
+        }
+        List<Task> before = manager.getAllTasks();
+        long version = manager.snapshot().getVersion();
+
+        // удаление во время обхода не ломает итерацию и не меняет уже выданный список
+        int seen = 0;
+        for (Task task : manager.getAllTasks()) {
+            manager.removeTask(task.getId());
+            manager.addTask("replacement", "desc");
+            seen++;
+        }
+        assertEquals(100, seen);
+        assertEquals(100, before.size());
+        assertEquals(1L, before.get(0).getId());
+        assertEquals(version + 200, manager.snapshot().getVersion());
+        assertNull(manager.snapshot().get(1L));
+        assertEquals(List.of(), filter(manager, task -> task.getId() <= 100));
+        assertThrows(UnsupportedOperationException.class, () -> before.remove(0));
+    }
+
+    private static List<Task> filter(TaskManager manager, Predicate<Task> condition) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : manager.getAllTasks()) {
+            if (condition.test(task)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,124 @@
+package com.alraxas.taskmanager.metrics;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.managers.TaskManager;
+import com.alraxas.taskmanager.queries.TaskQuery;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    @Test
+    public void testTaskOperationsAndScansAreRecorded() throws Exception {
+        TaskManager taskManager = new TaskManager();
+        taskManager.setEventSink(NoOpEventSink.INSTANCE);
+        for (int i = 0; i < 10; i++) {
+            taskManager.addTask("task " + i, "description", i < 3 ? TaskPriority.URGENT : TaskPriority.LOW);
+        }
+
+        List<RecordedEvent> events;
+        try (Recording recording = startRecording()) {
+            taskManager.addTask("recorded", "description", TaskPriority.URGENT);
+            taskManager.query(TaskQuery.tasks().priority(TaskPriority.URGENT).status(TaskStatus.PENDING));
+            events = stop(recording);
+        }
+
+        List<RecordedEvent> operations = ofType(events, "com.alraxas.taskmanager.ManagerOperation");
+        assertEquals(2, operations.size());
+        assertEquals("add", operations.get(0).getString("operation"));
+        assertEquals(-1, operations.get(0).getInt("resultSize"));
+        RecordedEvent query = operations.get(1);
+        assertEquals("TaskManager", query.getString("manager"));
+        assertEquals("query", query.getString("operation"));
+        assertEquals(4, query.getInt("resultSize"));
+        assertTrue(query.getLong("elapsed") > 0);
+        assertNotNull(query.getStackTrace());
+
+        // приоритет выбран как самый узкий источник: просмотрены только его кандидаты
+        List<RecordedEvent> scans = ofType(events, "com.alraxas.taskmanager.Scan");
+        assertEquals(1, scans.size());
+        assertEquals("priority", scans.get(0).getString("source"));
+        assertEquals(4, scans.get(0).getInt("visited"));
+        assertEquals(4, scans.get(0).getInt("resultSize"));
+        assertFalse(scans.get(0).getBoolean("parallel"));
+    }
+
+    @Test
+    public void testAlarmCheckAndFiringAreRecorded() throws Exception {
+        AlarmManager alarmManager = new AlarmManager(1, 16, Clock.systemDefaultZone(), 1);
+        alarmManager.setEventSink(NoOpEventSink.INSTANCE);
+        alarmManager.setAlarm("late", LocalDateTime.now().plusSeconds(1));
+        alarmManager.setClock(Clock.offset(Clock.systemDefaultZone(), Duration.ofSeconds(5)));
+
+        List<RecordedEvent> events;
+        try (Recording recording = startRecording()) {
+            alarmManager.startAlarmChecker();
+            try {
+                long deadline = System.currentTimeMillis() + 3000;
+                // счетчик шарда растет, когда проверка уже вернулась и события записаны
+                while (alarmManager.getSchedulerStatistics().get(0).getFired() == 0
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+            } finally {
+                alarmManager.shutdown();
+            }
+            events = stop(recording);
+        }
+
+        List<RecordedEvent> fired = ofType(events, "com.alraxas.taskmanager.AlarmFired");
+        assertEquals(1, fired.size());
+        assertTrue(fired.get(0).getLong("lag") >= 3_000_000_000L);
+        assertFalse(fired.get(0).getBoolean("recurring"));
+
+        List<RecordedEvent> checks = ofType(events, "com.alraxas.taskmanager.AlarmCheck");
+        assertEquals(1, checks.size());
+        assertTrue(checks.get(0).getBoolean("triggered"));
+        assertEquals(fired.get(0).getLong("alarmId"), checks.get(0).getLong("alarmId"));
+    }
+
+    private static Recording startRecording() {
+        Recording recording = new Recording();
+        // по классу, а не по имени: так событие регистрируется сразу, до первого экземпляра
+        for (Class<? extends Event> type : List.of(ManagerOperationEvent.class, ScanEvent.class,
+                AlarmCheckEvent.class, AlarmFiredEvent.class)) {
+            recording.enable(type).withThreshold(Duration.ZERO);
+        }
+        recording.start();
+        return recording;
+    }
+
+    private static List<RecordedEvent> stop(Recording recording) throws Exception {
+        recording.stop();
+        Path file = Files.createTempFile("taskmanager", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((left, right) -> left.getStartTime().compareTo(right.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
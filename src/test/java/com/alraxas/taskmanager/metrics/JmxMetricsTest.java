@@ -0,0 +1,113 @@
+package com.alraxas.taskmanager.metrics;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.managers.TaskManager;
+import com.alraxas.taskmanager.models.Task;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JmxMetricsTest {
+
+    @Test
+    public void testHistogramPercentilesAndConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        // корзина шире значения не больше чем на четверть
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000, histogram.getMeanNanos());
+        assertEquals(100_000, histogram.getMaxNanos());
+        long p50 = histogram.getP50Nanos();
+        assertTrue(p50 >= 50_000 && p50 <= 62_500, "p50 = " + p50);
+        long p99 = histogram.getP99Nanos();
+        assertTrue(p99 >= 99_000 && p99 <= 100_000, "p99 = " + p99);
+
+        histogram.reset();
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread writer = new Thread(() -> {
+                for (int j = 0; j < 50_000; j++) {
+                    histogram.record(j);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(200_000, histogram.getCount());
+        assertEquals(49_999, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testManagersExposeMetricsOverJmx() throws Exception {
+        TaskManager taskManager = new TaskManager();
+        taskManager.setEventSink(NoOpEventSink.INSTANCE);
+        List<ObjectName> names = JmxMetrics.register("test", taskManager);
+        try {
+            Task task = taskManager.addTask("report", "numbers", TaskPriority.HIGH);
+            taskManager.addTask("review", "code", TaskPriority.LOW);
+            taskManager.completeTask(task.getId());
+            taskManager.getActiveTasks();
+            taskManager.searchTasksByTitle("rev");
+            taskManager.removeTask(task.getId());
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName stats = new ObjectName("com.alraxas.taskmanager:type=TaskManager,name=\"test\"");
+            assertEquals(1, server.getAttribute(stats, "TaskCount"));
+            assertEquals(2L, server.getAttribute(stats, "AddCount"));
+            assertEquals(1L, server.getAttribute(stats, "UpdateCount"));
+            assertEquals(1L, server.getAttribute(stats, "RemoveCount"));
+            assertEquals(2L, server.getAttribute(stats, "QueryCount"));
+            TabularData byPriority = (TabularData) server.getAttribute(stats, "TasksByPriority");
+            CompositeData low = byPriority.get(new Object[]{"LOW"});
+            assertEquals(1, low.get("value"));
+
+            ObjectName adds = new ObjectName("com.alraxas.taskmanager:type=TaskManager,name=\"test\",histogram=add");
+            assertEquals(2L, server.getAttribute(adds, "Count"));
+            assertTrue((Long) server.getAttribute(adds, "MaxNanos") > 0);
+        } finally {
+            JmxMetrics.unregister(names);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(names.get(0)));
+    }
+
+    @Test
+    public void testAlarmFireLagFollowsManagerClock() throws InterruptedException {
+        LocalDateTime due = LocalDateTime.now().plusNanos(100_000_000);
+        AlarmManager alarmManager = new AlarmManager(1, 16, Clock.systemDefaultZone(), 1);
+        alarmManager.setEventSink(NoOpEventSink.INSTANCE);
+        alarmManager.setAlarm("late", due);
+        // часы менеджера ушли на пять секунд вперед - будильник срабатывает с опозданием
+        alarmManager.setClock(Clock.offset(Clock.systemDefaultZone(), Duration.ofSeconds(5)));
+        alarmManager.startAlarmChecker();
+        try {
+            long deadline = System.currentTimeMillis() + 3000;
+            while (alarmManager.getMetrics().getFireLag().getCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            alarmManager.shutdown();
+        }
+        assertEquals(1, alarmManager.getMetrics().getChecks().getCount());
+        assertTrue(alarmManager.getMetrics().getFireLag().getMaxNanos() >= 4_000_000_000L);
+        assertEquals(0, alarmManager.getDispatchQueueDepth());
+    }
+}
@@ -0,0 +1,89 @@
+package com.alraxas.taskmanager.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceRuleTest {
+    // понедельник
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2030, 3, 4, 10, 0);
+
+    @Test
+    public void testIntervalsSkipMissedOccurrences() {
+        RecurrenceRule everyThreeHours = RecurrenceRule.everyHours(3);
+        assertEquals(MONDAY.plusHours(3), everyThreeHours.next(MONDAY, MONDAY));
+        assertEquals(MONDAY.plusHours(18), everyThreeHours.next(MONDAY, MONDAY.plusHours(16).plusMinutes(30)));
+
+        // год простоя - одно деление, а не перебор пропущенных дней
+        assertEquals(MONDAY.plusYears(1).plusDays(1),
+                RecurrenceRule.daily().next(MONDAY, MONDAY.plusYears(1).plusHours(2)));
+        assertEquals(MONDAY.plusDays(3), RecurrenceRule.everyDays(3).next(MONDAY, MONDAY.plusHours(1)));
+    }
+
+    @Test
+    public void testWeeklyAndMonthly() {
+        LocalDateTime friday = MONDAY.plusDays(4);
+        assertEquals(MONDAY.plusWeeks(1), RecurrenceRule.weekdays().next(friday, friday));
+        assertEquals(MONDAY.plusDays(2),
+                RecurrenceRule.weekly(DayOfWeek.WEDNESDAY, DayOfWeek.SUNDAY).next(MONDAY, MONDAY));
+
+        // в коротком месяце срабатывает в последний день, затем возвращается к 31 числу
+        RecurrenceRule endOfMonth = RecurrenceRule.monthly(31);
+        LocalDateTime january = LocalDateTime.of(2030, 1, 31, 8, 0);
+        LocalDateTime february = endOfMonth.next(january, january);
+        assertEquals(LocalDateTime.of(2030, 2, 28, 8, 0), february);
+        assertEquals(LocalDateTime.of(2030, 3, 31, 8, 0), endOfMonth.next(february, february));
+    }
+
+    @Test
+    public void testExceptionDatesAreSkipped() {
+        RecurrenceRule daily = RecurrenceRule.daily()
+                .except(LocalDate.of(2030, 3, 6), LocalDate.of(2030, 3, 5));
+        assertEquals(MONDAY.plusDays(3), daily.next(MONDAY, MONDAY));
+        assertEquals(2, daily.getExceptions().size());
+        assertEquals("Daily except 2 dates", daily.getDescription());
+
+        // исключение убирает все срабатывания за день
+        LocalDateTime evening = MONDAY.withHour(22);
+        RecurrenceRule sixHours = RecurrenceRule.everyHours(6).except(LocalDate.of(2030, 3, 5));
+        assertEquals(LocalDateTime.of(2030, 3, 6, 4, 0), sixHours.next(evening, evening));
+    }
+
+    @Test
+    public void testRulesAreValuesAndValidated() {
+        assertSame(RecurrenceRule.DAILY, RecurrenceRule.everyDays(1));
+        assertEquals(RecurrenceRule.monthly(15), RecurrenceRule.monthly(15));
+        assertNotEquals(RecurrenceRule.weekdays(), RecurrenceRule.weekly(DayOfWeek.MONDAY));
+        assertEquals("Weekdays", RecurrenceRule.weekdays().getDescription());
+
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.everyHours(0));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.monthly(32));
+        assertThrows(IllegalArgumentException.class, RecurrenceRule::weekly);
+    }
+
+    @Test
+    public void testAlarmFollowsRule() {
+        assertTrue(new Alarm(1L, "flag kept", MONDAY, true).isRecurring());
+
+        Alarm water = new Alarm(2L, "water", MONDAY, RecurrenceRule.everyHours(2));
+        water.trigger(MONDAY.plusMinutes(1));
+        assertEquals(MONDAY.plusHours(2), water.getAlarmTime());
+        assertFalse(water.shouldTrigger(MONDAY.plusMinutes(2)));
+
+        // повторяющийся будильник звонит несколько раз за день
+        assertTrue(water.shouldTrigger(MONDAY.plusHours(2).plusMinutes(1)));
+        water.trigger(MONDAY.plusHours(2).plusMinutes(1));
+        assertEquals(MONDAY.plusHours(4), water.getAlarmTime());
+        assertTrue(water.isActive());
+
+        water.setRecurring(true);
+        assertEquals(RecurrenceRule.everyHours(2), water.getRecurrence());
+        water.setRecurring(false);
+        water.trigger(MONDAY.plusHours(5));
+        assertFalse(water.isActive());
+    }
+}
@@ -0,0 +1,167 @@
+package com.alraxas.taskmanager.persistence;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.managers.TaskManager;
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    private TaskManager newTaskManager() {
+        TaskManager taskManager = new TaskManager();
+        taskManager.setEventSink(NoOpEventSink.INSTANCE);
+        return taskManager;
+    }
+
+    private AlarmManager newAlarmManager() {
+        AlarmManager alarmManager = new AlarmManager(1, 16);
+        alarmManager.setEventSink(NoOpEventSink.INSTANCE);
+        return alarmManager;
+    }
+
+    @Test
+    public void testReplayRestoresState() throws Exception {
+        Path path = dir.resolve("journal.bin");
+        LocalDateTime due = LocalDateTime.now().plusDays(2).withNano(0);
+        LocalDateTime ring = LocalDateTime.now().plusHours(3).withNano(0);
+
+        TaskManager taskManager = newTaskManager();
+        AlarmManager alarmManager = newAlarmManager();
+        try (Journal journal = Journal.open(path, taskManager, alarmManager, false)) {
+            Task kept = taskManager.addTask("Kept", "stays", TaskPriority.HIGH, due);
+            Task removed = taskManager.addTask("Removed", "goes away");
+            taskManager.completeTask(kept.getId());
+            taskManager.updateTask(kept.getId(), "Kept renamed", "stays", TaskPriority.URGENT);
+            taskManager.removeTask(removed.getId());
+
+            Alarm alarm = alarmManager.setAlarm(new Alarm(1L, "Wake up", ring, true, true));
+            alarmManager.deactivateAlarm(alarm.getId());
+            journal.sync();
+        } finally {
+            alarmManager.shutdown();
+        }
+
+        TaskManager restoredTasks = newTaskManager();
+        AlarmManager restoredAlarms = newAlarmManager();
+        try (Journal journal = Journal.open(path, restoredTasks, restoredAlarms, true)) {
+            assertEquals(1, restoredTasks.getTaskCount());
+            Task task = restoredTasks.getAllTasks().get(0);
+            assertEquals("Kept renamed", task.getTitle());
+            assertEquals(TaskStatus.COMPLETED, task.getTaskStatus());
+            assertEquals(TaskPriority.URGENT, task.getTaskPriority());
+            assertEquals(due, task.getDueDate());
+            assertNotNull(task.getCompletedAt());
+            assertEquals(1, restoredTasks.searchTasksByTitle("renamed").size());
+
+            assertEquals(1, restoredAlarms.getAlarmCount());
+            Alarm alarm = restoredAlarms.getAllAlarms().get(0);
+            assertEquals("Wake up", alarm.getMessage());
+            assertEquals(ring, alarm.getAlarmTime());
+            assertFalse(alarm.isActive());
+            assertTrue(alarm.isRecurring());
+
+            // новые идентификаторы продолжаются после восстановленных
+            Task next = restoredTasks.addTask("Next", "after replay");
+            assertTrue(next.getId() > task.getId());
+            journal.sync();
+        } finally {
+            restoredAlarms.shutdown();
+        }
+    }
+
+    @Test
+    public void testTornTailIsDiscarded() throws Exception {
+        Path path = dir.resolve("journal.bin");
+
+        TaskManager taskManager = newTaskManager();
+        AlarmManager alarmManager = newAlarmManager();
+        try (Journal journal = Journal.open(path, taskManager, alarmManager, true)) {
+            taskManager.addTask("First", "durable");
+            taskManager.addTask("Second", "durable");
+            journal.sync();
+        } finally {
+            alarmManager.shutdown();
+        }
+        long validSize = Files.size(path);
+        // недописанная запись: заголовок есть, данных не хватает
+        Files.write(path, new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        TaskManager restoredTasks = newTaskManager();
+        AlarmManager restoredAlarms = newAlarmManager();
+        try (Journal journal = Journal.open(path, restoredTasks, restoredAlarms, true)) {
+            assertEquals(2, restoredTasks.getTaskCount());
+            assertEquals(validSize, Files.size(path));
+            restoredTasks.addTask("Third", "after recovery");
+            journal.sync();
+        } finally {
+            restoredAlarms.shutdown();
+        }
+
+        TaskManager reopened = newTaskManager();
+        AlarmManager reopenedAlarms = newAlarmManager();
+        try (Journal journal = Journal.open(path, reopened, reopenedAlarms, false)) {
+            assertEquals(3, reopened.getTaskCount());
+            journal.sync();
+        } finally {
+            reopenedAlarms.shutdown();
+        }
+    }
+
+    @Test
+    public void testBogusRecordLengthIsDiscarded() throws Exception {
+        Path path = dir.resolve("journal.bin");
+
+        TaskManager taskManager = newTaskManager();
+        AlarmManager alarmManager = newAlarmManager();
+        try (Journal journal = Journal.open(path, taskManager, alarmManager, true)) {
+            taskManager.addTask("First", "durable");
+            journal.sync();
+        } finally {
+            alarmManager.shutdown();
+        }
+        long validSize = Files.size(path);
+        // поврежденный заголовок: длина почти 2 ГБ, а в файле после него несколько байт
+        Files.write(path, new byte[]{0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0, 1, 2, 3, 4, 5, 6},
+                StandardOpenOption.APPEND);
+
+        TaskManager restoredTasks = newTaskManager();
+        AlarmManager restoredAlarms = newAlarmManager();
+        try (Journal journal = Journal.open(path, restoredTasks, restoredAlarms, false)) {
+            assertEquals(1, restoredTasks.getTaskCount());
+            assertEquals(validSize, Files.size(path));
+            journal.sync();
+        } finally {
+            restoredAlarms.shutdown();
+        }
+    }
+
+    @Test
+    public void testAppendAfterCloseIsRejected() throws Exception {
+        Path path = dir.resolve("closed.bin");
+        TaskManager taskManager = newTaskManager();
+        AlarmManager alarmManager = newAlarmManager();
+        Journal journal = Journal.open(path, taskManager, alarmManager, true);
+        journal.close();
+        alarmManager.shutdown();
+
+        // раньше запись уходила в буфер, который уже никто не сбросит, и вызов ждал вечно
+        Task late = new Task(1L, "Late", "after close");
+        assertThrows(IllegalStateException.class, () -> journal.onTaskAdded(late));
+        assertEquals(0, Files.size(path));
+    }
+}
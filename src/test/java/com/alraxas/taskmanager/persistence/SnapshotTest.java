@@ -0,0 +1,210 @@
+package com.alraxas.taskmanager.persistence;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.events.NoOpEventSink;
+import com.alraxas.taskmanager.managers.AlarmManager;
+import com.alraxas.taskmanager.managers.TaskManager;
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.RecurrenceRule;
+import com.alraxas.taskmanager.models.Task;
+import com.alraxas.taskmanager.models.TaskChangeListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private TaskManager newTaskManager() {
+        TaskManager taskManager = new TaskManager();
+        taskManager.setEventSink(NoOpEventSink.INSTANCE);
+        return taskManager;
+    }
+
+    private AlarmManager newAlarmManager() {
+        AlarmManager alarmManager = new AlarmManager(1, 16);
+        alarmManager.setEventSink(NoOpEventSink.INSTANCE);
+        return alarmManager;
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        Path path = dir.resolve("state.snapshot");
+        LocalDateTime due = LocalDateTime.now().plusDays(1).withNano(0);
+
+        TaskManager taskManager = newTaskManager();
+        AlarmManager alarmManager = newAlarmManager();
+        for (int i = 0; i < 100; i++) {
+            taskManager.addTask("Report " + i, "quarterly numbers", TaskPriority.MEDIUM, due);
+        }
+        Task last = taskManager.addTask("Last", "removed before the snapshot");
+        taskManager.removeTask(last.getId());
+        taskManager.completeTask(1L);
+        RecurrenceRule standup = RecurrenceRule.weekdays().except(due.toLocalDate().plusDays(7));
+        alarmManager.setAlarm(new Alarm(7L, "Standup", due, true, standup));
+        Snapshot.write(path, taskManager, alarmManager);
+        alarmManager.shutdown();
+
+        assertFalse(Snapshot.load(dir.resolve("missing.snapshot"), newTaskManager(), newAlarmManager()));
+
+        TaskManager restoredTasks = newTaskManager();
+        restoredTasks.setStatisticsCheck(true);
+        AlarmManager restoredAlarms = newAlarmManager();
+        try {
+            assertTrue(Snapshot.load(path, restoredTasks, restoredAlarms));
+            assertEquals(100, restoredTasks.getTaskCount());
+            assertEquals(TaskStatus.COMPLETED, restoredTasks.getTaskById(1L).getTaskStatus());
+            assertEquals(due, restoredTasks.getTaskById(2L).getDueDate());
+            assertEquals(99, restoredTasks.getActiveTasks().size());
+            restoredTasks.getStatistics();
+
+            // текстовый индекс строится при первом поиске и дальше отслеживает изменения
+            assertEquals(1, restoredTasks.searchTasksByTitle("Report 42").size());
+            restoredTasks.updateTask(43L, "Renamed", "quarterly numbers", TaskPriority.LOW);
+            assertEquals(0, restoredTasks.searchTasksByTitle("Report 42").size());
+            assertEquals(1, restoredTasks.searchTasksByTitle("renamed").size());
+            assertEquals(100, restoredTasks.searchTasksByDescription("quarterly").size());
+
+            // удаленная до снимка задача не должна вернуть свой id
+            assertTrue(restoredTasks.addTask("Next", "fresh").getId() > last.getId());
+
+            assertEquals(1, restoredAlarms.getAlarmCount());
+            assertTrue(restoredAlarms.getAlarmById(7L).isRecurring());
+            assertEquals(standup, restoredAlarms.getAlarmById(7L).getRecurrence());
+            assertEquals(8L, restoredAlarms.getNextId());
+        } finally {
+            restoredAlarms.shutdown();
+        }
+    }
+
+    @Test
+    public void testTasksAddedOutOfIdOrderAreFoundAfterLoad() throws Exception {
+        Path path = dir.resolve("unordered.snapshot");
+        TaskManager taskManager = newTaskManager();
+        AlarmManager alarmManager = newAlarmManager();
+        taskManager.addTask(new Task(9L, "late", "desc"));
+        taskManager.addTask(new Task(3L, "early", "desc"));
+        taskManager.addTask(new Task(7L, "middle", "desc"));
+        Snapshot.write(path, taskManager, alarmManager);
+        alarmManager.shutdown();
+
+        TaskManager restoredTasks = newTaskManager();
+        AlarmManager restoredAlarms = newAlarmManager();
+        try {
+            assertTrue(Snapshot.load(path, restoredTasks, restoredAlarms));
+            assertEquals("early", restoredTasks.getTaskById(3L).getTitle());
+            assertEquals("middle", restoredTasks.getTaskById(7L).getTitle());
+            assertEquals("late", restoredTasks.getTaskById(9L).getTitle());
+        } finally {
+            restoredAlarms.shutdown();
+        }
+    }
+
+    @Test
+    public void testTasksAreDecodedOnDemandFromSeveralRegions() throws Exception {
+        Path path = dir.resolve("regions.snapshot");
+        TaskManager taskManager = newTaskManager();
+        AlarmManager alarmManager = newAlarmManager();
+        for (int i = 0; i < 1000; i++) {
+            taskManager.addTask("Task " + i, "x".repeat(i % 50), TaskPriority.values()[i % 4]);
+        }
+        Snapshot.write(path, taskManager, alarmManager);
+        alarmManager.shutdown();
+
+        TaskManager restoredTasks = newTaskManager();
+        int[] callbacks = new int[2]; // добавлено, восстановлено
+        restoredTasks.addChangeListener(new TaskChangeListener() {
+            @Override
+            public void onTaskAdded(Task task) {
+                callbacks[0]++;
+            }
+
+            @Override
+            public void onTaskRestored(Task task) {
+                callbacks[1]++;
+            }
+        });
+        AlarmManager restoredAlarms = newAlarmManager();
+        try {
+            // куски по 4 КБ: и таблица, и записи лежат в нескольких отображениях
+            assertTrue(Snapshot.load(path, restoredTasks, restoredAlarms, 4096));
+            assertEquals(1000, restoredTasks.getTaskCount());
+            assertEquals(0, callbacks[1]);
+
+            assertEquals("Task 499", restoredTasks.getTaskById(500L).getTitle());
+            assertTrue(restoredTasks.completeTask(700L));
+            assertTrue(restoredTasks.removeTask(10L));
+            assertNull(restoredTasks.getTaskById(10L));
+            assertEquals(3, callbacks[1]);
+            assertEquals(999, restoredTasks.getTaskCount());
+
+            // первый запрос по индексу раскодирует остальные записи
+            assertEquals(List.of(restoredTasks.getTaskById(700L)), restoredTasks.getCompletedTasks());
+            assertEquals(1000, callbacks[1]);
+            assertEquals(0, callbacks[0]);
+            List<String> expected = new ArrayList<>();
+            for (Task task : taskManager.getAllTasks()) {
+                if (task.getId() != 10L) {
+                    expected.add(task.getTitle());
+                }
+            }
+            List<String> titles = new ArrayList<>();
+            for (Task task : restoredTasks.getAllTasks()) {
+                titles.add(task.getTitle());
+            }
+            assertEquals(expected, titles);
+            assertEquals(taskManager.getTasksByPriority(TaskPriority.LOW).size(),
+                    restoredTasks.getTasksByPriority(TaskPriority.LOW).size());
+        } finally {
+            restoredAlarms.shutdown();
+        }
+    }
+
+    @Test
+    public void testCheckpointCompactsJournal() throws Exception {
+        Path snapshotPath = dir.resolve("state.snapshot");
+        Path journalPath = dir.resolve("journal.bin");
+
+        TaskManager taskManager = newTaskManager();
+        AlarmManager alarmManager = newAlarmManager();
+        try (Journal journal = Journal.open(journalPath, taskManager, alarmManager, true)) {
+            for (int i = 0; i < 50; i++) {
+                taskManager.addTask("Before " + i, "covered by the snapshot");
+            }
+            long before = Files.size(journalPath);
+            journal.checkpoint(snapshotPath);
+            assertTrue(Files.size(journalPath) < before);
+
+            taskManager.addTask("After", "only in the journal");
+            taskManager.removeTask(3L);
+            taskManager.completeTask(4L);
+        } finally {
+            alarmManager.shutdown();
+        }
+
+        TaskManager restoredTasks = newTaskManager();
+        AlarmManager restoredAlarms = newAlarmManager();
+        try {
+            assertTrue(Snapshot.load(snapshotPath, restoredTasks, restoredAlarms));
+            try (Journal journal = Journal.open(journalPath, restoredTasks, restoredAlarms, false)) {
+                assertEquals(50, restoredTasks.getTaskCount());
+                assertNull(restoredTasks.getTaskById(3L));
+                assertEquals(TaskStatus.COMPLETED, restoredTasks.getTaskById(4L).getTaskStatus());
+                assertEquals(1, restoredTasks.searchTasksByTitle("After").size());
+                journal.sync();
+            }
+        } finally {
+            restoredAlarms.shutdown();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.alraxas.taskmanager.renderers;
+
+import com.alraxas.taskmanager.enums.ListingFormat;
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.models.Alarm;
+import com.alraxas.taskmanager.models.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingRendererTest {
+    private static final String NL = System.lineSeparator();
+
+    private final LocalDateTime due = LocalDateTime.of(2030, 3, 4, 10, 0);
+    private final Task task = new Task(1L, "Write \"report\"", "line\nbreak", TaskPriority.HIGH, due,
+            TaskStatus.COMPLETED, due.minusDays(1), due.minusHours(1));
+    private final Alarm alarm = new Alarm(2L, "Standup", due, true, true);
+
+    private String render(ListingFormat format, List<?> items) {
+        StringWriter out = new StringWriter();
+        try (ListingRenderer renderer = new ListingRenderer(out, format)) {
+            renderer.writeItems(items);
+        }
+        return out.toString();
+    }
+
+    @Test
+    public void testPlainAndCompactMatchModelStrings() {
+        assertEquals("1. " + task + NL + "2. " + alarm + NL, render(ListingFormat.PLAIN, List.of(task, alarm)));
+        assertEquals(task.toShortString() + NL + alarm.toShortString() + NL,
+                render(ListingFormat.COMPACT, List.of(task, alarm)));
+        // дата завершения выводится своя, а не дата создания
+        assertTrue(task.toString().contains("Completed: 04.03.2030 09:00"));
+    }
+
+    @Test
+    public void testJsonLines() {
+        assertEquals("{\"id\":1,\"title\":\"Write \\\"report\\\"\",\"description\":\"line\\nbreak\","
+                + "\"status\":\"COMPLETED\",\"priority\":\"HIGH\",\"dueDate\":\"2030-03-04T10:00:00\","
+                + "\"createdAt\":\"2030-03-03T10:00:00\",\"completedAt\":\"2030-03-04T09:00:00\",\"overdue\":false}" + NL
+                + "{\"id\":2,\"message\":\"Standup\",\"alarmTime\":\"2030-03-04T10:00:00\",\"active\":true,"
+                + "\"recurring\":true,\"createdAt\":\"" + alarm.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                + "\",\"lastTriggered\":null}" + NL,
+                render(ListingFormat.JSON, List.of(task, alarm)));
+    }
+
+    @Test
+    public void testOverdueFollowsGivenClock() {
+        Task pending = new Task(3L, "Pending", "desc", TaskPriority.LOW, due, due.minusDays(1));
+        for (int hours : new int[]{-1, 1}) {
+            LocalDateTime now = due.plusHours(hours);
+            StringWriter out = new StringWriter();
+            try (ListingRenderer renderer = new ListingRenderer(out, ListingFormat.JSON,
+                    Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC))) {
+                renderer.writeTasks(List.of(pending));
+            }
+            assertTrue(out.toString().contains("\"overdue\":" + (hours > 0)));
+        }
+    }
+}
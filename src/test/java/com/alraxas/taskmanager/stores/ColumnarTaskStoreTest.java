@@ -0,0 +1,51 @@
+package com.alraxas.taskmanager.stores;
+
+import com.alraxas.taskmanager.enums.TaskPriority;
+import com.alraxas.taskmanager.enums.TaskStatus;
+import com.alraxas.taskmanager.models.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTaskStoreTest {
+
+    @Test
+    public void testMaterializeAfterUpdatesAndRemovals() {
+        ColumnarTaskStore store = new ColumnarTaskStore(16);
+        LocalDateTime due = LocalDateTime.now().minusHours(1);
+        for (long id = 1; id <= 200; id++) {
+            Task task = new Task(id, "title " + id, id % 2 == 0 ? null : "описание " + id,
+                    TaskPriority.LOW, due);
+            task.setChangeListener(store);
+            store.onTaskAdded(task);
+            // частые переименования заставляют область строк уплотняться
+            for (int i = 0; i < 5; i++) {
+                task.setTitle("title " + id + " v" + i);
+            }
+            if (id % 4 == 0) {
+                task.markCompleted();
+            }
+            if (id % 10 == 0) {
+                store.onTaskRemoved(task);
+            }
+        }
+
+        assertEquals(180, store.size());
+        assertNull(store.materialize(10));
+        Task copy = store.materialize(7);
+        assertEquals("title 7 v4", copy.getTitle());
+        assertEquals("описание 7", copy.getDescription());
+        assertEquals(due, copy.getDueDate());
+        assertEquals(TaskPriority.LOW, copy.getTaskPriority());
+        assertNull(store.materialize(8).getDescription());
+        assertNotNull(store.materialize(8).getCompletedAt());
+
+        long[] completed = store.idsWithStatus(TaskStatus.COMPLETED);
+        assertEquals(40, completed.length);
+        assertEquals(4, completed[0]);
+        assertEquals(140, store.countOverdue(LocalDateTime.now()));
+        assertEquals(1, store.overdueIds(LocalDateTime.now())[0]);
+    }
+}
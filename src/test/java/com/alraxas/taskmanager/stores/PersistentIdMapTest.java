@@ -0,0 +1,81 @@
+package com.alraxas.taskmanager.stores;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentIdMapTest {
+
+    @Test
+    public void testMatchesSortedMapUnderRandomChanges() {
+        Random random = new Random(42);
+        TreeMap<Long, String> expected = new TreeMap<>();
+        PersistentIdMap<String> map = PersistentIdMap.empty();
+        for (int i = 0; i < 20_000; i++) {
+            // плотные id вперемешку с редкими большими, чтобы дерево росло вверх
+            long id = random.nextInt(10) == 0 ? random.nextLong() >>> 1 : random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(id);
+                map = map.without(id);
+            } else {
+                expected.put(id, "v" + id);
+                map = map.with(id, "v" + id);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(new ArrayList<>(expected.values()), map.values());
+        for (long id : expected.keySet()) {
+            assertEquals("v" + id, map.get(id));
+        }
+        assertNull(map.get(-1));
+        assertNull(map.get(Long.MAX_VALUE));
+
+        List<Long> ids = new ArrayList<>(expected.keySet());
+        for (int i = 0; i < 200; i++) {
+            long after = ids.get(random.nextInt(ids.size())) + random.nextInt(2);
+            List<String> tail = new ArrayList<>();
+            map.iterator(after).forEachRemaining(tail::add);
+            assertEquals(new ArrayList<>(expected.tailMap(after, false).values()), tail);
+        }
+        int index = random.nextInt(ids.size());
+        assertEquals("v" + ids.get(index), map.values().get(index));
+    }
+
+    @Test
+    public void testVersionsAreIndependentSnapshots() {
+        PersistentIdMap<String> first = PersistentIdMap.<String>empty().with(1, "a").with(2, "b");
+        PersistentIdMap<String> second = first.with(3, "c").without(1);
+        List<String> view = first.values();
+
+        assertEquals(List.of("a", "b"), view);
+        assertEquals(List.of("b", "c"), second.values());
+        assertEquals(2, first.getVersion());
+        assertEquals(4, second.getVersion());
+
+        // удаление по ожидаемому значению и повторная запись того же значения версию не меняют
+        assertSame(second, second.without(2, "other"));
+        assertSame(second, second.with(2, "b"));
+        assertSame(first.values(), view);
+        assertTrue(second.cleared().isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> view.add("d"));
+        assertThrows(IllegalArgumentException.class, () -> first.with(-1, "x"));
+    }
+
+    @Test
+    public void testParallelStreamKeepsOrder() {
+        PersistentIdMap<Long> map = PersistentIdMap.empty();
+        for (long id = 0; id < 100_000; id += 3) {
+            map = map.with(id, id);
+        }
+        Spliterator<Long> spliterator = map.values().spliterator();
+        assertEquals(map.size(), spliterator.estimateSize());
+        assertNotNull(spliterator.trySplit());
+
+        List<Long> collected = map.values().parallelStream().collect(Collectors.toList());
+        assertEquals(map.values(), collected);
+        assertEquals(map.size(), collected.size());
+    }
+}